@@ -2,8 +2,11 @@ package auction;
 
 //the list of imports
 
+import centralized.Move;
+import centralized.MoveChooser;
 import centralized.MyAction;
 import centralized.Solution;
+import centralized.TopologyIndex;
 import logist.LogistSettings;
 import logist.agent.Agent;
 import logist.behavior.AuctionBehavior;
@@ -31,6 +34,8 @@ public class AuctionMain implements AuctionBehavior {
     private DefaultTaskDistribution distribution;
     private Agent agent;
     private Random random;
+    private final Move move = new Move(); //move being evaluated
+    private MoveChooser chooser;
     private double p = .7;
     private long timeout_plan;
     private long timeout_bid;
@@ -52,6 +57,7 @@ public class AuctionMain implements AuctionBehavior {
         this.agent = agent;
 
         Solution.topology = topology;
+        Solution.index = TopologyIndex.of(topology);
 
         OpponentVehicle.costPerKm = agent.vehicles().stream().mapToInt(Vehicle::costPerKm).max().orElseThrow();
         OpponentVehicle.capacity = agent.vehicles().stream().mapToInt(Vehicle::capacity).max().orElseThrow();
@@ -74,8 +80,12 @@ public class AuctionMain implements AuctionBehavior {
         timeout_plan = ls.get(LogistSettings.TimeoutKey.PLAN);
         timeout_bid = ls.get(LogistSettings.TimeoutKey.BID);
 
+        // whether the cost of each solution is recomputed to check the cost computed from the changes
+        Solution.CHECK_COST = agent.readProperty("check-cost", Boolean.class, false);
+
         long seed = -9019554669489983951L * agent.id();
         this.random = new Random(seed);
+        this.chooser = new MoveChooser(random);
     }
 
     @Override
@@ -206,7 +216,7 @@ public class AuctionMain implements AuctionBehavior {
         do {
             List<City> newCities = new ArrayList<City>();
             for (City city : possibleOpponentCities) {
-                long totalDistance = city.distanceUnitsTo(task.pickupCity) + task.pickupCity.distanceUnitsTo(task.deliveryCity);
+                long totalDistance = Solution.index.distanceUnits(city, task.pickupCity) + Solution.index.distanceUnits(task.pickupCity, task.deliveryCity);
                 long marginalCost = totalDistance * OpponentVehicle.costPerKm;
                 // if the bid is smaller than the marginal cost of the city, it cannot be considered as candidate
                 if (marginalCost > bid) newCities.add(city);
@@ -266,8 +276,8 @@ public class AuctionMain implements AuctionBehavior {
         Solution A_old;
         do {
             A_old = A;
-            ArrayList<Solution> N = chooseNeighbours(A_old);
-            A = localChoice(N, A_old);
+            chooseNeighbours(A_old, chooser);
+            A = localChoice(chooser, A_old);
 
             if (A.computeCost() < bestCost) {
                 best = A;
@@ -279,85 +289,76 @@ public class AuctionMain implements AuctionBehavior {
     }
 
     /**
-     * returns similar solutions where a task was moved from a vehicle
-     * and similar solutions where two actions have been swapped
+     * offers to the chooser the feasible moves of the tasks of a random vehicle to the other vehicles,
+     * at every position of their routes, and the feasible swaps of two actions of that vehicle
      */
-    private ArrayList<Solution> chooseNeighbours(Solution A_old) {
-        ArrayList<Solution> neighbours = new ArrayList<>();
+    private void chooseNeighbours(Solution A_old, MoveChooser chooser) {
+        chooser.clear();
         List<Vehicle> randomVehicles = new ArrayList<>(A_old.getAgentVehicles());
         Collections.shuffle(randomVehicles);
 
         Vehicle vi = randomVehicles.stream().filter(A_old::hasActions).findFirst().orElseThrow();
 
-        if(vi == null) return neighbours;
-
         randomVehicles.remove(vi);
-        for (Task t : A_old.getTasks(vi)) {
+        for (MyAction a : A_old.getRoute(vi)) {
+            if (a.isDelivery()) continue;
+            Task t = a.getTask();
             for (Vehicle vj : randomVehicles) {
-                Solution n = new Solution(A_old);
-                n.moveTask(t, vi, vj);
-                if (n.checkCapacity() && n.checkOrder()) {
-                    neighbours.add(n);
-                }
-                if (t.weight <= vj.capacity()) {
-                    int length = A_old.getNumberOfActions(vj);
-                    for (int tIdx1 = 1; tIdx1 < length; tIdx1++) {
-                        for (int tIdx2 = tIdx1 + 1; tIdx2 < length + 1; tIdx2++) {
-                            Solution n2 = new Solution(n);
-                            n2.swapActionOrder(vj, 1, tIdx1);
-                            n2.swapActionOrder(vj, 2, tIdx2);
-                            if (n2.checkCapacity() && n2.checkOrder()) {
-                                neighbours.add(n);
-                            }
-                        }
+                if (t.weight > vj.capacity()) continue;
+                int length = A_old.getRoute(vj).length;
+                for (int pickup = 0; pickup <= length; pickup++) {
+                    for (int delivery = pickup + 1; delivery <= length + 1; delivery++) {
+                        move.setTaskMove(t, vi, vj, pickup, delivery);
+                        //the later deliveries increase the load of more actions
+                        if (!offer(A_old, chooser)) break;
                     }
                 }
             }
         }
         //add all permutation of 2 actions as neighbour (if valid)
-        int length = A_old.getNumberOfActions(vi);
-        for (int tIdx1 = 1; tIdx1 < length; tIdx1++) {
-            for (int tIdx2 = tIdx1 + 1; tIdx2 < length + 1; tIdx2++) {
-                Solution n = new Solution(A_old);
-                n.swapActionOrder(vi, tIdx1, tIdx2);
-                if (n.checkCapacity() && n.checkOrder()) {
-                    neighbours.add(n);
-                }
+        int length = A_old.getRoute(vi).length;
+        for (int i = 0; i < length; i++) {
+            for (int j = i + 1; j < length; j++) {
+                move.setSwap(vi, i, j);
+                offer(A_old, chooser);
             }
         }
-        return neighbours;
     }
 
     /**
-     * returns a random lowest cost element with probability p,
-     * and a random element with probability 1-p
+     * offers the move to the chooser if it is feasible, and returns whether it is
      */
-    private Solution localChoice(ArrayList<Solution> N, Solution A_old) {
-        if (N.isEmpty()) return A_old;
-
-        Solution chosenNeighbour;
-        double bestCost = A_old.computeCost();
-
-        ArrayList<Solution> bestSols = new ArrayList<>();
-        for (Solution sol : N) {
-            double cost = sol.computeCost();
-            if (cost < bestCost) {
-                bestCost = cost;
-                bestSols = new ArrayList<>();
-                bestSols.add(sol);
-            } else if (cost == bestCost) {
-                bestSols.add(sol);
-            }
-        }
+    private boolean offer(Solution A_old, MoveChooser chooser) {
+        if (!move.isFeasible(A_old)) return false;
+        chooser.offer(move, move.costChange(A_old));
+        return true;
+    }
 
+    /**
+     * returns a random lowest cost neighbour with probability p,
+     * and a random neighbour with probability 1-p
+     */
+    private Solution localChoice(MoveChooser chooser, Solution A_old) {
+        if (chooser.isEmpty()) return A_old;
 
+        Move chosen;
         //return best with probability p
         if (Math.random() < p) {
-            if (bestSols.isEmpty()) return A_old;
-            return bestSols.get(random.nextInt(bestSols.size()));
+            chosen = chooser.getBest();
+            if (chosen == null) return A_old;
         }
         //return random with probability 1-p
-        else return N.get(random.nextInt(N.size()));
+        else chosen = chooser.getAny();
+
+        Solution neighbour = chosen.applyTo(A_old);
+        if (Solution.CHECK_COST) {
+            double change = neighbour.computeFullCost() - A_old.computeFullCost();
+            if (Math.abs(change - chosen.costChange(A_old)) > 1e-6 * Math.max(1, A_old.computeFullCost())
+                    || !neighbour.checkCapacity() || !neighbour.checkOrder()) {
+                throw new IllegalStateException("wrong evaluation of a move, its cost change is " + change);
+            }
+        }
+        return neighbour;
     }
 
     /**
@@ -0,0 +1,68 @@
+package centralized;
+
+import java.util.Random;
+
+/**
+ * Chooses among the feasible moves offered to it, without storing them: keeps one of the moves with the lowest cost
+ * change (if it is not positive) and one of all the moves, each uniformly at random (reservoir sampling).
+ */
+public class MoveChooser {
+    private final Random random;
+    private final Move best = new Move();
+    private final Move any = new Move();
+    private double bestChange;
+    private int bestCount; //number of moves with the lowest cost change
+    private int count;
+
+    public MoveChooser(Random random) {
+        this.random = random;
+    }
+
+    public void clear() {
+        bestChange = 0;
+        bestCount = 0;
+        count = 0;
+    }
+
+    /**
+     * offers a feasible move with the given cost change, the move can be modified afterwards
+     */
+    public void offer(Move move, double costChange) {
+        count++;
+        if (random.nextInt(count) == 0) any.copyFrom(move);
+
+        if (costChange < bestChange) {
+            bestChange = costChange;
+            bestCount = 0;
+        }
+        if (costChange == bestChange) {
+            bestCount++;
+            if (random.nextInt(bestCount) == 0) best.copyFrom(move);
+        }
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * returns one of the moves with the lowest cost change, or null if all the moves have a positive cost change
+     */
+    public Move getBest() {
+        return (bestCount == 0) ? null : best;
+    }
+
+    /**
+     * returns one of all the moves
+     */
+    public Move getAny() {
+        return any;
+    }
+
+    /**
+     * returns the number of moves offered since the last clear()
+     */
+    public int size() {
+        return count;
+    }
+}
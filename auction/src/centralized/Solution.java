@@ -10,15 +10,32 @@ import java.util.*;
 
 public class Solution {
     public static Topology topology;
+    public static TopologyIndex index;
+    //recomputes the whole cost at each computeCost() to check the cached distances
+    public static boolean CHECK_COST;
     private List<Vehicle> agentVehicles;
 
     private HashMap<Vehicle, MyAction> nextActionsVehicle;
     private HashMap<MyAction, MyAction> nextActions;
 
+    //distance between the actions of each vehicle (in the order of agentVehicles), from its first action to its last one,
+    //updated by the moves and swaps, and recomputed after a call to setNextAction
+    private double[] chainDistances;
+    private boolean chainDistancesValid;
+
+    //actions of each vehicle in order (in the order of agentVehicles), load of the vehicle after each of them, and
+    //position of the pickup and of the delivery of each task in its route, built when needed and cleared when the
+    //solution changes
+    private MyAction[][] routes;
+    private int[][] loads;
+    private HashMap<Task, int[]> positions;
+
     public Solution(List<Vehicle> agentVehicles) {
         this.agentVehicles = agentVehicles;
         nextActionsVehicle = new HashMap<>();
         nextActions = new HashMap<>();
+        chainDistances = new double[agentVehicles.size()];
+        chainDistancesValid = true;
     }
 
     @SuppressWarnings("unchecked")
@@ -26,6 +43,8 @@ public class Solution {
         agentVehicles = original.agentVehicles;
         nextActionsVehicle = (HashMap<Vehicle, MyAction>) original.nextActionsVehicle.clone();
         nextActions = (HashMap<MyAction, MyAction>) original.nextActions.clone();
+        chainDistances = original.chainDistances.clone();
+        chainDistancesValid = original.chainDistancesValid;
     }
 
     public void addNewTask(Task task) {
@@ -50,9 +69,35 @@ public class Solution {
     }
 
     /**
-     * returns the cost of transport of the solution
+     * returns the cost of transport of the solution, from the cached distances
+     * the distance from the current city of each vehicle to its first action is not cached,
+     * as the starting city of the opponent vehicles changes between the estimations
      */
     public double computeCost() {
+        if (!chainDistancesValid) {
+            for (int i = 0; i < agentVehicles.size(); i++) {
+                chainDistances[i] = computeChainDistance(agentVehicles.get(i));
+            }
+            chainDistancesValid = true;
+        }
+        double cost = 0;
+        for (int i = 0; i < agentVehicles.size(); i++) {
+            Vehicle v = agentVehicles.get(i);
+            double distance = chainDistances[i];
+            MyAction first = getNextAction(v);
+            if (first != null) distance += index.distance(v.getCurrentCity(), first.getActionCity());
+            cost += distance * v.costPerKm();
+        }
+        if (CHECK_COST && Math.abs(cost - computeFullCost()) > 1e-6 * Math.max(1, cost)) {
+            throw new IllegalStateException("cached cost " + cost + " differs from the cost " + computeFullCost());
+        }
+        return cost;
+    }
+
+    /**
+     * returns the cost of transport of the solution, following the actions of every vehicle
+     */
+    public double computeFullCost() {
         double cost = 0;
         for (Vehicle v : agentVehicles) {
             cost += computeVehicleDistance(v) * v.costPerKm();
@@ -60,6 +105,34 @@ public class Solution {
         return cost;
     }
 
+    /**
+     * returns the distance between the actions of the given vehicle, from its first action to its last one
+     */
+    private double computeChainDistance(Vehicle v) {
+        double distance = 0;
+        MyAction a = getNextAction(v);
+        while (a != null) {
+            distance += linkDistance(a, getNextAction(a));
+            a = getNextAction(a);
+        }
+        return distance;
+    }
+
+    /**
+     * returns the distance between two consecutive actions, 0 if one of them is missing
+     */
+    private static double linkDistance(MyAction a, MyAction b) {
+        if (a == null || b == null) return 0;
+        return index.distance(a.getActionCity(), b.getActionCity());
+    }
+
+    /**
+     * adds the given change of distance to the cached distance of a vehicle
+     */
+    private void addChainDistance(Vehicle v, double delta) {
+        if (chainDistancesValid) chainDistances[agentVehicles.indexOf(v)] += delta;
+    }
+
     /**
      * returns the distance travelled by the given vehicle
      */
@@ -67,12 +140,12 @@ public class Solution {
         double distance = 0;
         MyAction ti = getNextAction(v);
         if (ti != null) {
-            distance += v.getCurrentCity().distanceTo(ti.getActionCity());
+            distance += index.distance(v.getCurrentCity(), ti.getActionCity());
             MyAction tj;
             while (true) {
                 tj = getNextAction(ti);
                 if (tj != null) {
-                    distance += ti.getActionCity().distanceTo(tj.getActionCity());
+                    distance += index.distance(ti.getActionCity(), tj.getActionCity());
                     ti = tj;
                 } else break;
             }
@@ -107,17 +180,23 @@ public class Solution {
         MyAction tPost2 = getNextAction(t2);
 
         if (tPost1 == t2) {
-            if (tPre1 == null) setNextAction(vi, t2);
-            else setNextAction(tPre1, t2);
-            setNextAction(t2, t1);
-            setNextAction(t1, tPost2);
+            addChainDistance(vi, linkDistance(tPre1, t2) + linkDistance(t2, t1) + linkDistance(t1, tPost2)
+                    - linkDistance(tPre1, t1) - linkDistance(t1, t2) - linkDistance(t2, tPost2));
+            if (tPre1 == null) link(vi, t2);
+            else link(tPre1, t2);
+            link(t2, t1);
+            link(t1, tPost2);
         } else {
-            if (tPre1 == null) setNextAction(vi, t2);
-            else setNextAction(tPre1, t2);
-            if (tPre2 == null) setNextAction(vi, t1);
-            else setNextAction(tPre2, t1);
-            setNextAction(t2, tPost1);
-            setNextAction(t1, tPost2);
+            addChainDistance(vi, linkDistance(tPre1, t2) + linkDistance(t2, tPost1)
+                    + linkDistance(tPre2, t1) + linkDistance(t1, tPost2)
+                    - linkDistance(tPre1, t1) - linkDistance(t1, tPost1)
+                    - linkDistance(tPre2, t2) - linkDistance(t2, tPost2));
+            if (tPre1 == null) link(vi, t2);
+            else link(tPre1, t2);
+            if (tPre2 == null) link(vi, t1);
+            else link(tPre2, t1);
+            link(t2, tPost1);
+            link(t1, tPost2);
         }
     }
 
@@ -125,23 +204,8 @@ public class Solution {
      * moves an action from a vehicle to another
      */
     public void moveAction(MyAction t, Vehicle v1, Vehicle v2) {
-        //remove MyAction from v1
-        MyAction ti = getNextAction(v1);
-        if (ti.equals(t)) setNextAction(v1, getNextAction(ti));
-        else {
-            while (getNextAction(ti) != null) {//TODO error??
-                if (!getNextAction(ti).equals(t)) ti = getNextAction(ti);
-                else {
-                    setNextAction(ti, getNextAction(getNextAction(ti)));
-                    break;
-                }
-            }
-        }
-
-        //Insert it in v2
-        MyAction copy = getNextAction(v2);
-        setNextAction(v2, t);
-        setNextAction(t, copy);
+        removeAction(t, v1);
+        insertAction(t, v2, 0);
     }
 
     /**
@@ -154,6 +218,55 @@ public class Solution {
         moveAction(pickup, v1, v2);
     }
 
+    /**
+     * moves a task from a vehicle to another, where its pickup and its delivery are at the given positions (from 0)
+     */
+    public void moveTask(Task task, Vehicle v1, Vehicle v2, int pickupIndex, int deliveryIndex) {
+        MyAction pickup = new MyAction(task, true);
+        MyAction deliver = new MyAction(task, false);
+        removeAction(deliver, v1);
+        removeAction(pickup, v1);
+        insertAction(pickup, v2, pickupIndex);
+        insertAction(deliver, v2, deliveryIndex);
+    }
+
+    /**
+     * removes an action from the actions of a vehicle
+     */
+    private void removeAction(MyAction t, Vehicle v) {
+        MyAction ti = getNextAction(v);
+        if (ti.equals(t)) {
+            addChainDistance(v, -linkDistance(ti, getNextAction(ti)));
+            link(v, getNextAction(ti));
+        } else {
+            while (getNextAction(ti) != null) {
+                if (!getNextAction(ti).equals(t)) ti = getNextAction(ti);
+                else {
+                    MyAction next = getNextAction(getNextAction(ti));
+                    addChainDistance(v, linkDistance(ti, next) - linkDistance(ti, t) - linkDistance(t, next));
+                    link(ti, next);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * inserts an action at the given position (from 0) of the actions of a vehicle
+     */
+    private void insertAction(MyAction t, Vehicle v, int position) {
+        MyAction previous = null;
+        MyAction next = getNextAction(v);
+        for (int k = 0; k < position; k++) {
+            previous = next;
+            next = getNextAction(next);
+        }
+        addChainDistance(v, linkDistance(previous, t) + linkDistance(t, next) - linkDistance(previous, next));
+        if (previous == null) link(v, t);
+        else link(previous, t);
+        link(t, next);
+    }
+
     /**
      * converts the solution to a list of plans for each vehicle
      */
@@ -168,9 +281,7 @@ public class Solution {
                 currentCity = a.getActionCity();
 
                 if (!currentCity.equals(previousCity)) {
-                    for (City step : previousCity.pathTo(currentCity)) {
-                        plan.appendMove(step);
-                    }
+                    index.appendPath(plan, previousCity, currentCity);
                 }
 
                 if (a.isPickup()) {
@@ -217,13 +328,11 @@ public class Solution {
      */
     public boolean checkOrder() {
         for (Vehicle vehicle : agentVehicles) {
-            List<Task> treated = new ArrayList<Task>();
+            Set<Task> pickedUp = new HashSet<>();
             MyAction myaction = getNextAction(vehicle);
             while (myaction != null) {
-                if (!treated.contains(myaction.getTask())) {
-                    if (myaction.isDelivery()) return false;
-                    else treated.add(myaction.getTask());
-                }
+                if (myaction.isPickup()) pickedUp.add(myaction.getTask());
+                else if (!pickedUp.contains(myaction.getTask())) return false;
                 myaction = getNextAction(myaction);
             }
         }
@@ -243,6 +352,62 @@ public class Solution {
         return length;
     }
 
+    /**
+     * Returns the actions of given vehicle in order, must not be modified
+     */
+    public MyAction[] getRoute(Vehicle v) {
+        if (routes == null) buildRoutes();
+        return routes[agentVehicles.indexOf(v)];
+    }
+
+    /**
+     * Returns the load of given vehicle after each of its actions, must not be modified
+     */
+    public int[] getLoads(Vehicle v) {
+        if (routes == null) buildRoutes();
+        return loads[agentVehicles.indexOf(v)];
+    }
+
+    /**
+     * Returns the position of the pickup or of the delivery of given task in the route of its vehicle
+     */
+    public int getPosition(Task task, boolean pickup) {
+        if (routes == null) buildRoutes();
+        return positions.get(task)[pickup ? 0 : 1];
+    }
+
+    /**
+     * builds the routes of every vehicle with their loads and the positions of the actions
+     */
+    private void buildRoutes() {
+        routes = new MyAction[agentVehicles.size()][];
+        loads = new int[agentVehicles.size()][];
+        positions = new HashMap<>();
+        for (int i = 0; i < agentVehicles.size(); i++) {
+            Vehicle v = agentVehicles.get(i);
+            MyAction[] route = new MyAction[getNumberOfActions(v)];
+            int[] load = new int[route.length];
+            int currentLoad = 0;
+            MyAction a = getNextAction(v);
+            for (int k = 0; k < route.length; k++) {
+                Task task = a.getTask();
+                int[] taskPositions = positions.computeIfAbsent(task, t -> new int[2]);
+                if (a.isPickup()) {
+                    currentLoad += task.weight;
+                    taskPositions[0] = k;
+                } else {
+                    currentLoad -= task.weight;
+                    taskPositions[1] = k;
+                }
+                route[k] = a;
+                load[k] = currentLoad;
+                a = getNextAction(a);
+            }
+            routes[i] = route;
+            loads[i] = load;
+        }
+    }
+
     /**
      * Returns the taks of given vehicle
      */
@@ -265,11 +430,26 @@ public class Solution {
     }
 
     public void setNextAction(Vehicle vehicle, MyAction nextAction) {
-        nextActionsVehicle.put(vehicle, nextAction);
+        link(vehicle, nextAction);
+        chainDistancesValid = false;
     }
 
     public void setNextAction(MyAction action, MyAction nextAction) {
+        link(action, nextAction);
+        chainDistancesValid = false;
+    }
+
+    /**
+     * sets the next action without updating the cached distances
+     */
+    private void link(Vehicle vehicle, MyAction nextAction) {
+        nextActionsVehicle.put(vehicle, nextAction);
+        routes = null;
+    }
+
+    private void link(MyAction action, MyAction nextAction) {
         nextActions.put(action, nextAction);
+        routes = null;
     }
 
     public boolean hasActions(Vehicle v) {
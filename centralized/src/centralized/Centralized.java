@@ -30,6 +30,8 @@ public class Centralized implements CentralizedBehavior {
     private long timeout_plan;
     private double p = .7;
     private Random rand = new Random();
+    private final Move move = new Move(); //move being evaluated
+    private final MoveChooser chooser = new MoveChooser(rand);
 
     @Override
     public void setup(Topology topology, TaskDistribution distribution,
@@ -52,6 +54,8 @@ public class Centralized implements CentralizedBehavior {
         this.distribution = distribution;
         this.agent = agent;
 
+        // whether the cost of each solution is recomputed to check the cost computed from the changes
+        Solution.CHECK_COST = agent.readProperty("check-cost", Boolean.class, false);
     }
 
     @Override
@@ -62,6 +66,7 @@ public class Centralized implements CentralizedBehavior {
         Solution.NUM_TASKS = agent.getTasks().size();
         Solution.NUM_VEHICLES = agent.vehicles().size();
         Solution.topology = topology;
+        Solution.index = TopologyIndex.of(topology);
         Solution.agent = agent;
 
         Solution best = null;
@@ -71,10 +76,14 @@ public class Centralized implements CentralizedBehavior {
         System.out.println("initial cost:" + A.computeCost());
         Solution A_old;
         A.printActions();
+        int iterations = 0;
+        long neighbours = 0;
         do {
+            iterations++;
             A_old = A;
-            ArrayList<Solution> N = chooseNeighbours(A_old);
-            A = localChoice(N, A_old);
+            chooseNeighbours(A_old, chooser);
+            neighbours += chooser.size();
+            A = localChoice(chooser, A_old);
 //            A.printActions();
 
             if (A.computeCost() < bestCost) {
@@ -90,7 +99,8 @@ public class Centralized implements CentralizedBehavior {
 
         long time_end = System.currentTimeMillis();
         long duration = time_end - time_start;
-        System.out.println("The plan was generated in " + duration + " milliseconds.");
+        System.out.println("The plan was generated in " + duration + " milliseconds (" + iterations + " iterations, "
+                + neighbours + " neighbours).");
 
         return plans;
     }
@@ -153,83 +163,76 @@ public class Centralized implements CentralizedBehavior {
     }
 
     /**
-     * returns similar solutions where a task was moved from a vehicle
-     * and similar solutions where two actions have been swapped
+     * offers to the chooser the feasible moves of the tasks of a random vehicle to the other vehicles,
+     * at every position of their routes, and the feasible swaps of two actions of that vehicle
      */
-    private ArrayList<Solution> chooseNeighbours(Solution A_old) {
-        ArrayList<Solution> neighbours = new ArrayList<>();
+    private void chooseNeighbours(Solution A_old, MoveChooser chooser) {
+        chooser.clear();
         List<Vehicle> randomVehicles = new ArrayList<>(agent.vehicles());
         Collections.shuffle(randomVehicles);
 
         Vehicle vi = randomVehicles.stream().filter(A_old::hasActions).findFirst().orElseThrow();
 
         randomVehicles.remove(vi);
-        for (Task t : A_old.getTasks(vi)) {
+        for (MyAction a : A_old.getRoute(vi)) {
+            if (a.isDelivery()) continue;
+            Task t = a.getTask();
             for (Vehicle vj : randomVehicles) {
-                Solution n = new Solution(A_old);
-                n.moveTask(t, vi, vj);
-                if (n.checkCapacity() && n.checkOrder()) {
-                    neighbours.add(n);
-                }
-                if (t.weight <= vj.capacity()) {
-                    int length = A_old.getNumberOfActions(vj);
-                    for (int tIdx1 = 1; tIdx1 < length; tIdx1++) {
-                        for (int tIdx2 = tIdx1 + 1; tIdx2 < length + 1; tIdx2++) {
-                            Solution n2 = new Solution(n);
-                            n2.swapActionOrder(vj, 1, tIdx1);
-                            n2.swapActionOrder(vj, 2, tIdx2);
-                            if (n2.checkCapacity() && n2.checkOrder()) {
-                                neighbours.add(n);
-                            }
-                        }
+                if (t.weight > vj.capacity()) continue;
+                int length = A_old.getRoute(vj).length;
+                for (int pickup = 0; pickup <= length; pickup++) {
+                    for (int delivery = pickup + 1; delivery <= length + 1; delivery++) {
+                        move.setTaskMove(t, vi, vj, pickup, delivery);
+                        //the later deliveries increase the load of more actions
+                        if (!offer(A_old, chooser)) break;
                     }
                 }
             }
         }
         //add all permutation of 2 actions as neighbour (if valid)
-        int length = A_old.getNumberOfActions(vi);
-        for (int tIdx1 = 1; tIdx1 < length; tIdx1++) {
-            for (int tIdx2 = tIdx1 + 1; tIdx2 < length + 1; tIdx2++) {
-                Solution n = new Solution(A_old);
-                n.swapActionOrder(vi, tIdx1, tIdx2);
-                if (n.checkCapacity() && n.checkOrder()) {
-                    neighbours.add(n);
-                }
+        int length = A_old.getRoute(vi).length;
+        for (int i = 0; i < length; i++) {
+            for (int j = i + 1; j < length; j++) {
+                move.setSwap(vi, i, j);
+                offer(A_old, chooser);
             }
         }
-        return neighbours;
     }
 
     /**
-     * returns a random lowest cost element with probability p,
-     * and a random element with probability 1-p
+     * offers the move to the chooser if it is feasible, and returns whether it is
      */
-    private Solution localChoice(ArrayList<Solution> N, Solution A_old) {
-        if (N.isEmpty()) return A_old;
-
-        Solution chosenNeighbour;
-        double bestCost = A_old.computeCost();
-
-        ArrayList<Solution> bestSols = new ArrayList<>();
-        for (Solution sol : N) {
-            double cost = sol.computeCost();
-            if (cost < bestCost) {
-                bestCost = cost;
-                bestSols = new ArrayList<>();
-                bestSols.add(sol);
-            } else if (cost == bestCost) {
-                bestSols.add(sol);
-            }
-        }
+    private boolean offer(Solution A_old, MoveChooser chooser) {
+        if (!move.isFeasible(A_old)) return false;
+        chooser.offer(move, move.costChange(A_old));
+        return true;
+    }
 
+    /**
+     * returns a random lowest cost neighbour with probability p,
+     * and a random neighbour with probability 1-p
+     */
+    private Solution localChoice(MoveChooser chooser, Solution A_old) {
+        if (chooser.isEmpty()) return A_old;
 
+        Move chosen;
         //return best with probability p
         if (Math.random() < p) {
-            if (bestSols.isEmpty()) return A_old;
-            return bestSols.get(rand.nextInt(bestSols.size()));
+            chosen = chooser.getBest();
+            if (chosen == null) return A_old;
         }
         //return random with probability 1-p
-        else return N.get(rand.nextInt(N.size()));
+        else chosen = chooser.getAny();
+
+        Solution neighbour = chosen.applyTo(A_old);
+        if (Solution.CHECK_COST) {
+            double change = neighbour.computeFullCost() - A_old.computeFullCost();
+            if (Math.abs(change - chosen.costChange(A_old)) > 1e-6 * Math.max(1, A_old.computeFullCost())
+                    || !neighbour.checkCapacity() || !neighbour.checkOrder()) {
+                throw new IllegalStateException("wrong evaluation of a move, its cost change is " + change);
+            }
+        }
+        return neighbour;
     }
 
 }
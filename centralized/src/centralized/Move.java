@@ -0,0 +1,173 @@
+package centralized;
+
+import logist.simulation.Vehicle;
+import logist.task.Task;
+import logist.topology.Topology.City;
+
+/**
+ * Description of a neighbour of a solution: a task moved from a vehicle to another, with the positions of its pickup
+ * and its delivery in the new route, or two actions of a vehicle swapped.
+ * The change of cost and the feasibility of a move are computed from the routes of the solution, without copying it,
+ * so that only the chosen move is applied.
+ */
+public class Move {
+    enum Type {TASK, SWAP}
+
+    private Type type;
+    private Task task; //moved task
+    private Vehicle from; //vehicle losing the task
+    private Vehicle vehicle; //vehicle receiving the task, or whose actions are swapped
+    private int i; //position of the pickup in the new route, or of the first swapped action (from 0)
+    private int j; //position of the delivery in the new route, or of the second swapped action
+
+    /**
+     * describes the move of task from vehicle from to vehicle to, with its pickup and its delivery at the given
+     * positions of the new route of to
+     */
+    public void setTaskMove(Task task, Vehicle from, Vehicle to, int pickupIndex, int deliveryIndex) {
+        this.type = Type.TASK;
+        this.task = task;
+        this.from = from;
+        this.vehicle = to;
+        this.i = pickupIndex;
+        this.j = deliveryIndex;
+    }
+
+    /**
+     * describes the swap of the actions at positions i < j of the route of the vehicle
+     */
+    public void setSwap(Vehicle vehicle, int i, int j) {
+        this.type = Type.SWAP;
+        this.vehicle = vehicle;
+        this.i = i;
+        this.j = j;
+    }
+
+    public void copyFrom(Move move) {
+        type = move.type;
+        task = move.task;
+        from = move.from;
+        vehicle = move.vehicle;
+        i = move.i;
+        j = move.j;
+    }
+
+    /**
+     * returns the cost of s after the move minus the cost of s
+     */
+    public double costChange(Solution s) {
+        if (type == Type.SWAP) {
+            MyAction[] route = s.getRoute(vehicle);
+            City start = vehicle.getCurrentCity();
+            double before, after;
+            if (j == i + 1) {
+                before = distance(start, route, i - 1, i) + distance(start, route, i, j) + distance(start, route, j, j + 1);
+                after = distance(start, route, i - 1, j) + distance(start, route, j, i) + distance(start, route, i, j + 1);
+            } else {
+                before = distance(start, route, i - 1, i) + distance(start, route, i, i + 1)
+                        + distance(start, route, j - 1, j) + distance(start, route, j, j + 1);
+                after = distance(start, route, i - 1, j) + distance(start, route, j, i + 1)
+                        + distance(start, route, j - 1, i) + distance(start, route, i, j + 1);
+            }
+            return (after - before) * vehicle.costPerKm();
+        }
+
+        //remove the pickup and the delivery from the route of from
+        MyAction[] route = s.getRoute(from);
+        City start = from.getCurrentCity();
+        int pickup = s.getPosition(task, true), delivery = s.getPosition(task, false);
+        double removed;
+        if (delivery == pickup + 1) {
+            removed = distance(start, route, pickup - 1, pickup) + distance(start, route, pickup, delivery)
+                    + distance(start, route, delivery, delivery + 1) - distance(start, route, pickup - 1, delivery + 1);
+        } else {
+            removed = distance(start, route, pickup - 1, pickup) + distance(start, route, pickup, pickup + 1)
+                    - distance(start, route, pickup - 1, pickup + 1)
+                    + distance(start, route, delivery - 1, delivery) + distance(start, route, delivery, delivery + 1)
+                    - distance(start, route, delivery - 1, delivery + 1);
+        }
+
+        //insert them in the route of vehicle, the delivery at j is after the action at j - 2 of the current route
+        route = s.getRoute(vehicle);
+        start = vehicle.getCurrentCity();
+        double added;
+        if (j == i + 1) {
+            added = distance(start, route, i - 1, task.pickupCity) + Solution.index.distance(task.pickupCity, task.deliveryCity)
+                    + distance(task.deliveryCity, route, i) - distance(start, route, i - 1, i);
+        } else {
+            added = distance(start, route, i - 1, task.pickupCity) + distance(task.pickupCity, route, i)
+                    - distance(start, route, i - 1, i)
+                    + distance(start, route, j - 2, task.deliveryCity) + distance(task.deliveryCity, route, j - 1)
+                    - distance(start, route, j - 2, j - 1);
+        }
+        return added * vehicle.costPerKm() - removed * from.costPerKm();
+    }
+
+    /**
+     * returns whether s after the move respects the order and capacity constraints, given that s respects them
+     * only the loads of the actions between the changed positions are checked
+     */
+    public boolean isFeasible(Solution s) {
+        int[] loads = s.getLoads(vehicle);
+        if (type == Type.SWAP) {
+            MyAction[] route = s.getRoute(vehicle);
+            MyAction first = route[i], second = route[j];
+            if (first.isPickup() && s.getPosition(first.getTask(), false) <= j) return false;
+            if (second.isDelivery() && s.getPosition(second.getTask(), true) >= i) return false;
+            //the loads change from i to j - 1
+            return fits(loads, i, j - 1, weight(second) - weight(first), vehicle.capacity());
+        }
+
+        //removing a task from a route keeps it feasible, the loads of the route of vehicle increase from the pickup
+        //to the delivery
+        int before = (i > 0) ? loads[i - 1] : 0;
+        if (before + task.weight > vehicle.capacity()) return false;
+        return fits(loads, i, j - 2, task.weight, vehicle.capacity());
+    }
+
+    /**
+     * applies the move to a copy of s, and returns it
+     */
+    public Solution applyTo(Solution s) {
+        Solution neighbour = new Solution(s);
+        if (type == Type.SWAP) neighbour.swapActionOrder(vehicle, i + 1, j + 1);
+        else neighbour.moveTask(task, from, vehicle, i, j);
+        return neighbour;
+    }
+
+    /**
+     * returns whether the loads from position a to b (included), increased by delta, are within the capacity
+     */
+    private static boolean fits(int[] loads, int a, int b, int delta, int capacity) {
+        if (delta <= 0) return true;
+        for (int k = a; k <= b; k++) {
+            if (loads[k] + delta > capacity) return false;
+        }
+        return true;
+    }
+
+    /**
+     * returns the change of load of an action
+     */
+    private static int weight(MyAction a) {
+        return a.isPickup() ? a.getTask().weight : -a.getTask().weight;
+    }
+
+    /**
+     * returns the distance between the actions at positions a and b of the route, where the position -1 is the start
+     * city, and 0 if a position is after the end of the route
+     */
+    private static double distance(City start, MyAction[] route, int a, int b) {
+        if (b >= route.length) return 0;
+        return distance(start, route, a, route[b].getActionCity());
+    }
+
+    private static double distance(City start, MyAction[] route, int a, City city) {
+        return Solution.index.distance((a < 0) ? start : route[a].getActionCity(), city);
+    }
+
+    private static double distance(City city, MyAction[] route, int b) {
+        if (b >= route.length) return 0;
+        return Solution.index.distance(city, route[b].getActionCity());
+    }
+}
@@ -0,0 +1,183 @@
+package deliberative;
+
+import logist.config.Parsers;
+import logist.plan.Plan;
+import logist.simulation.Vehicle;
+import logist.task.DefaultTaskDistribution;
+import logist.task.TaskSet;
+import logist.topology.Topology;
+import logist.topology.Topology.City;
+
+import java.awt.Color;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Runs the search algorithms of Deliberative on random instances of increasing size,
+ * and reports for each one the cost of the plan, the number of visited nodes and the computation time.
+ *
+ * Run from the deliberative directory, with the sources of src/ and bench/ compiled to bin/:
+ * java -cp "bin:lib/*:lib/logist/*" deliberative.SearchBenchmark [topology] [max tasks] [seeds] [algorithms...]
+ */
+public class SearchBenchmark {
+    private static final int CAPACITY = 30;
+    //-Dmacro-moves=false expands the moves to the neighbour cities one at a time
+    private static final boolean MACRO_MOVES = Boolean.parseBoolean(System.getProperty("macro-moves", "true"));
+    //-Dthreads=n sets the number of threads of HDASTAR
+    private static final int THREADS = Integer.getInteger("threads", Runtime.getRuntime().availableProcessors());
+    //-Dnode-budget=n sets the number of nodes SMASTAR can keep in memory
+    private static final int NODE_BUDGET = Integer.getInteger("node-budget", 1000000);
+    //-Dplan-timeout=ms sets the time given to ARASTAR
+    private static final long PLAN_TIMEOUT = Long.getLong("plan-timeout", 300000);
+    //-Ddominance=false disables the pruning of the dominated states in ASTAR
+    private static final boolean DOMINANCE = Boolean.parseBoolean(System.getProperty("dominance", "true"));
+
+    public static void main(String[] args) throws Exception {
+        String topologyName = (args.length > 0) ? args[0] : "switzerland";
+        int maxTasks = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+        int seeds = (args.length > 2) ? Integer.parseInt(args[2]) : 3;
+        String[] algorithms = {"ASTAR", "ASTAR_MST"};
+        if (args.length > 3) {
+            algorithms = new String[args.length - 3];
+            System.arraycopy(args, 3, algorithms, 0, algorithms.length);
+        }
+
+        Topology topology = Parsers.parseTopology("config/topology/" + topologyName + ".xml");
+        PrintStream out = System.out;
+        PrintStream silent = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        });
+
+        out.println("algorithm,topology,tasks,seed,cost,visited_nodes,time_ms");
+        for (int tasks = 4; tasks <= maxTasks; tasks++) {
+            for (int seed = 0; seed < seeds; seed++) {
+                DefaultTaskDistribution td = taskDistribution(topology, seed);
+                TaskSet taskSet = td.createTaskSet(tasks);
+                Vehicle vehicle = new BenchVehicle(topology.cities().get(seed % topology.size()), TaskSet.noneOf(taskSet));
+
+                for (String algorithm : algorithms) {
+                    Deliberative deliberative = new Deliberative();
+                    deliberative.topology = topology;
+                    deliberative.index = TopologyIndex.of(topology);
+                    deliberative.td = td;
+                    deliberative.algorithm = Deliberative.Algorithm.valueOf(algorithm);
+                    deliberative.closedSetBytes = Runtime.getRuntime().maxMemory() / 4;
+                    deliberative.macroMoves = MACRO_MOVES;
+                    deliberative.threads = THREADS;
+                    deliberative.nodeBudget = NODE_BUDGET;
+                    deliberative.initialWeight = 3.0;
+                    deliberative.weightStep = 0.5;
+                    deliberative.planTimeout = PLAN_TIMEOUT;
+                    deliberative.dominance = DOMINANCE;
+
+                    //the planner prints its progress
+                    System.setOut(silent);
+                    long start = System.nanoTime();
+                    Plan plan;
+                    try {
+                        plan = deliberative.plan(vehicle, taskSet);
+                    } finally {
+                        System.setOut(out);
+                    }
+                    double time = (System.nanoTime() - start) / 1e6;
+                    out.println(String.format(Locale.ROOT, "%s,%s,%d,%d,%.1f,%d,%.1f", algorithm, topologyName,
+                            tasks, seed, plan.totalDistance(), deliberative.visitedNodes, time));
+                }
+            }
+        }
+    }
+
+    /**
+     * uniform probabilities, constant rewards and weights
+     */
+    private static DefaultTaskDistribution taskDistribution(Topology topology, long seed) {
+        Random random = new Random(seed);
+        int n = topology.size();
+        double[][] p = new double[n][n], r = new double[n][n], w = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                p[i][j] = random.nextDouble();
+                r[i][j] = 1000;
+                w[i][j] = 3;
+            }
+        }
+        return new DefaultTaskDistribution(topology, random, p, r, w, new double[n]);
+    }
+
+    /**
+     * vehicle standing in a city, with the given carried tasks
+     */
+    static class BenchVehicle implements Vehicle {
+        private final City city;
+        private final TaskSet currentTasks;
+
+        BenchVehicle(City city, TaskSet currentTasks) {
+            this.city = city;
+            this.currentTasks = currentTasks;
+        }
+
+        @Override
+        public int id() {
+            return 0;
+        }
+
+        @Override
+        public String name() {
+            return "bench";
+        }
+
+        @Override
+        public int capacity() {
+            return CAPACITY;
+        }
+
+        @Override
+        public City homeCity() {
+            return city;
+        }
+
+        @Override
+        public double speed() {
+            return 100;
+        }
+
+        @Override
+        public int costPerKm() {
+            return 5;
+        }
+
+        @Override
+        public City getCurrentCity() {
+            return city;
+        }
+
+        @Override
+        public TaskSet getCurrentTasks() {
+            return currentTasks;
+        }
+
+        @Override
+        public long getReward() {
+            return 0;
+        }
+
+        @Override
+        public long getDistanceUnits() {
+            return 0;
+        }
+
+        @Override
+        public double getDistance() {
+            return 0;
+        }
+
+        @Override
+        public Color color() {
+            return Color.BLUE;
+        }
+    }
+}
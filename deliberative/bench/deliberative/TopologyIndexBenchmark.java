@@ -0,0 +1,147 @@
+package deliberative;
+
+import logist.config.Parsers;
+import logist.plan.Action;
+import logist.plan.Plan;
+import logist.topology.Topology;
+import logist.topology.Topology.City;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compares the lookups of TopologyIndex with the ones of the logist topology objects they replace,
+ * over all the pairs of cities of each topology. Reports the time per call in nanoseconds.
+ *
+ * Run from the deliberative directory, with the sources of src/ and bench/ compiled to bin/:
+ * java -cp "bin:lib/*:lib/logist/*" deliberative.TopologyIndexBenchmark [seconds per benchmark]
+ */
+public class TopologyIndexBenchmark {
+    private static final String[] TOPOLOGIES = {"france", "england", "switzerland", "the_netherlands"};
+
+    //results are accumulated here so that the JIT cannot remove the benchmarked code
+    private static volatile double sink;
+
+    private final double seconds;
+
+    public TopologyIndexBenchmark(double seconds) {
+        this.seconds = seconds;
+    }
+
+    public static void main(String[] args) throws Exception {
+        double seconds = (args.length > 0) ? Double.parseDouble(args[0]) : 1.0;
+        TopologyIndexBenchmark benchmark = new TopologyIndexBenchmark(seconds);
+
+        System.out.println("benchmark,topology,cities,ns_per_call");
+        for (String name : TOPOLOGIES) {
+            Topology topology = Parsers.parseTopology("config/topology/" + name + ".xml");
+            benchmark.run(name, topology);
+        }
+    }
+
+    private void run(String name, Topology topology) {
+        TopologyIndex index = TopologyIndex.of(topology);
+        List<City> cities = topology.cities();
+        int pairs = cities.size() * cities.size();
+        checkPaths(name, index, cities);
+
+        measure("City.distanceTo", name, cities.size(), pairs, () -> {
+            double sum = 0;
+            for (City from : cities) {
+                for (City to : cities) sum += from.distanceTo(to);
+            }
+            sink += sum;
+        });
+        measure("TopologyIndex.distance", name, cities.size(), pairs, () -> {
+            double sum = 0;
+            for (City from : cities) {
+                for (City to : cities) sum += index.distance(from, to);
+            }
+            sink += sum;
+        });
+
+        measure("City.distanceUnitsTo", name, cities.size(), pairs, () -> {
+            long sum = 0;
+            for (City from : cities) {
+                for (City to : cities) sum += from.distanceUnitsTo(to);
+            }
+            sink += sum;
+        });
+        measure("TopologyIndex.distanceUnits", name, cities.size(), pairs, () -> {
+            long sum = 0;
+            for (City from : cities) {
+                for (City to : cities) sum += index.distanceUnits(from, to);
+            }
+            sink += sum;
+        });
+
+        //the moves of the path appended to a plan, like when converting a solution to plans
+        measure("City.pathTo", name, cities.size(), pairs, () -> {
+            for (City from : cities) {
+                Plan plan = new Plan(from);
+                for (City to : cities) {
+                    for (City step : from.pathTo(to)) plan.appendMove(step);
+                }
+                sink += plan.hashCode();
+            }
+        });
+        measure("TopologyIndex.appendPath", name, cities.size(), pairs, () -> {
+            for (City from : cities) {
+                Plan plan = new Plan(from);
+                for (City to : cities) index.appendPath(plan, from, to);
+                sink += plan.hashCode();
+            }
+        });
+    }
+
+    /**
+     * prints the pairs of cities for which appendPath() does not give the same moves as City.pathTo()
+     */
+    private static void checkPaths(String name, TopologyIndex index, List<City> cities) {
+        for (City from : cities) {
+            for (City to : cities) {
+                Plan plan = new Plan(from);
+                index.appendPath(plan, from, to);
+                List<Action> actions = new ArrayList<>();
+                for (Action action : plan) actions.add(action);
+                Plan expected = new Plan(from);
+                for (City step : from.pathTo(to)) expected.appendMove(step);
+                Iterator<Action> it = expected.iterator();
+                boolean same = true;
+                for (Action action : actions) {
+                    if (!it.hasNext() || !action.toString().equals(it.next().toString())) same = false;
+                }
+                if (!same || it.hasNext()) {
+                    System.out.println("# " + name + ": the paths from " + from + " to " + to + " differ");
+                }
+            }
+        }
+    }
+
+    /**
+     * runs the operation for the configured time after a warm-up of the same length,
+     * and prints the time per call
+     */
+    private void measure(String benchmark, String topology, int cities, int callsPerOperation, Runnable operation) {
+        long budget = (long) (seconds * 1e9);
+        //warm-up
+        long start = System.nanoTime();
+        do {
+            operation.run();
+        } while (System.nanoTime() - start < budget);
+
+        long operations = 0;
+        start = System.nanoTime();
+        long elapsed;
+        do {
+            operation.run();
+            operations++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < budget);
+
+        System.out.println(String.format(Locale.ROOT, "%s,%s,%d,%.3f", benchmark, topology, cities,
+                elapsed / (double) (operations * callsPerOperation)));
+    }
+}
@@ -0,0 +1,169 @@
+package deliberative;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Anytime repairing A* (ARA*): a series of weighted A* searches, ordered on g + w * h, with a decreasing weight w.
+ * Each search returns a plan at most w times costlier than the optimal one, and reuses the work of the previous ones:
+ * the lowest g-value of every state is kept, and only the states whose g-value decreased since they were expanded
+ * (the inconsistent ones) are expanded again.
+ *
+ * The search stops at the deadline, and the best plan found so far is kept along with a bound on its suboptimality:
+ * its cost divided by the lowest g + h of the states left to expand.
+ */
+public class AraStar {
+    private static final int DEADLINE_CHECK = 256; //expansions between two checks of the deadline
+
+    private final Problem problem;
+    private final ToDoubleFunction<Node> h;
+    private final long closedSetBytes;
+    private final long deadline;
+
+    private final HashMap<Node, Node> seen = new HashMap<>(); //node with the lowest g-value of each state
+    private OpenList open = new OpenList();
+    private ArrayList<Node> inconsistent = new ArrayList<>();
+    private ClosedSet closed;
+
+    private Node best; //final node of the best plan found so far
+    private double bound = Double.POSITIVE_INFINITY;
+    private double weight;
+    private long expansions;
+    private int iterations;
+    private boolean timedOut;
+
+    /**
+     * deadline is the value of System.nanoTime() at which the search must stop
+     */
+    public AraStar(Problem problem, ToDoubleFunction<Node> h, long closedSetBytes, long deadline) {
+        this.problem = problem;
+        this.h = h;
+        this.closedSetBytes = closedSetBytes;
+        this.deadline = deadline;
+    }
+
+    /**
+     * returns the final node of the best plan found before the deadline, or null if none was found
+     * the weight starts at initialWeight and decreases by weightStep after each search, down to 1, and the searches stop
+     * when no state left to expand can improve the best plan
+     */
+    public Node search(Node initialNode, double initialWeight, double weightStep) {
+        weight = Math.max(1.0, initialWeight);
+        initialNode.setHCost(h.applyAsDouble(initialNode));
+        seen.put(initialNode, initialNode);
+        if (initialNode.isFinalState()) best = initialNode;
+        else open.add(initialNode, weight * initialNode.getHCost());
+
+        while (true) {
+            iterations++;
+            closed = new ClosedSet(problem, closedSetBytes);
+            improvePath();
+            if (timedOut) break;
+
+            if (best == null) break;
+            //the states left to expand, with the inconsistent ones, contain the optimal plan if it is not the best one
+            bound = Math.max(1.0, best.getGCost() / lowerBound());
+            if (bound <= 1.0) break;
+            //the heuristic is not consistent, so the searches continue with the weight 1 until the inconsistent states
+            //cannot improve the best plan
+            weight = Math.max(1.0, weight - weightStep);
+            reorder();
+        }
+        if (timedOut && best != null) {
+            bound = Math.max(1.0, Math.min(bound, best.getGCost() / lowerBound()));
+        }
+        return best;
+    }
+
+    /**
+     * weighted A* search, until no state left to expand can improve the best plan
+     */
+    private void improvePath() {
+        while (!open.isEmpty() && (best == null || open.peekCost() < best.getGCost())) {
+            if (expansions % DEADLINE_CHECK == 0 && System.nanoTime() >= deadline) {
+                timedOut = true;
+                return;
+            }
+            Node n = open.poll();
+            if (seen.get(n) != n) continue; //a better path was found since
+            closed.putIfLower(n, n.getGCost());
+            expansions++;
+
+            for (Node child : n.generateChildren()) {
+                Node known = seen.get(child);
+                if (known != null && known.getGCost() <= child.getGCost()) continue;
+                child.setHCost((known != null) ? known.getHCost() : h.applyAsDouble(child));
+                //no plan through the child can be better than the best one
+                if (best != null && child.getGCost() + child.getHCost() >= best.getGCost()) continue;
+                seen.put(child, child);
+
+                if (child.isFinalState()) {
+                    best = child;
+                } else if (closed.get(child) == Double.POSITIVE_INFINITY) {
+                    open.add(child, child.getGCost() + weight * child.getHCost());
+                } else {
+                    //already expanded in this search, it will be expanded again in the next one
+                    inconsistent.add(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * returns the lowest g + h of the states left to expand, or the cost of the best plan if there is none
+     */
+    private double lowerBound() {
+        double lowerBound = (best != null) ? best.getGCost() : Double.POSITIVE_INFINITY;
+        for (int i = 0; i < open.size(); i++) {
+            Node n = open.get(i);
+            lowerBound = Math.min(lowerBound, n.getGCost() + n.getHCost());
+        }
+        for (Node n : inconsistent) {
+            if (seen.get(n) == n) lowerBound = Math.min(lowerBound, n.getGCost() + n.getHCost());
+        }
+        return lowerBound;
+    }
+
+    /**
+     * moves the inconsistent states to the open list, and orders it with the current weight
+     */
+    private void reorder() {
+        OpenList reordered = new OpenList();
+        for (int i = 0; i < open.size(); i++) {
+            Node n = open.get(i);
+            reordered.add(n, n.getGCost() + weight * n.getHCost());
+        }
+        for (Node n : inconsistent) {
+            if (seen.get(n) == n) reordered.add(n, n.getGCost() + weight * n.getHCost());
+        }
+        open = reordered;
+        inconsistent = new ArrayList<>();
+    }
+
+    /**
+     * returns the bound on the cost of the best plan divided by the optimal cost
+     */
+    public double getBound() {
+        return bound;
+    }
+
+    /**
+     * returns the weight of the last search
+     */
+    public double getWeight() {
+        return weight;
+    }
+
+    public long getExpansions() {
+        return expansions;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+}
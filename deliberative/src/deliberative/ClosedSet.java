@@ -0,0 +1,168 @@
+package deliberative;
+
+/**
+ * Set of the processed states of a search and their lowest cost, keyed by the encoded state of the nodes.
+ * Open addressing with linear probing over flat primitive arrays: no boxing, no reference to the nodes
+ * (so that their parents can be collected), and a single probe sequence per lookup.
+ * The table never grows beyond the memory budget given at creation: inserting a state into a full table throws a
+ * FullException, while the cost of a state already in the table can always be updated.
+ */
+public class ClosedSet {
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final double MAX_LOAD = 0.6;
+
+    private final int stride; //words per key: the city id followed by the state of the node
+    private final long maxBytes;
+
+    private int capacity;
+    private int size;
+    private int[] hashes; //0 for an empty slot
+    private long[] keys;
+    private double[] costs;
+
+    /**
+     * thrown when a state does not fit in the memory budget of the table
+     */
+    public static class FullException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        FullException(String message) {
+            super(message);
+        }
+    }
+
+    public ClosedSet(Problem problem, long maxBytes) {
+        this.stride = 2 * problem.words + 1;
+        this.maxBytes = maxBytes;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        hashes = new int[capacity];
+        keys = new long[capacity * stride];
+        costs = new double[capacity];
+    }
+
+    /**
+     * returns the memory used by a table of the given capacity, in bytes
+     */
+    private long bytesFor(long capacity) {
+        return capacity * (4 + 8 * stride + 8);
+    }
+
+    /**
+     * stores the cost of the state of n if the state is not in the set or if it has a higher cost,
+     * and returns true, otherwise returns false
+     */
+    public boolean putIfLower(Node n, double cost) {
+        return store(n, cost, true);
+    }
+
+    /**
+     * stores the cost of the state of n, replacing the one stored before
+     */
+    public void put(Node n, double cost) {
+        store(n, cost, false);
+    }
+
+    private boolean store(Node n, double cost, boolean onlyIfLower) {
+        int hash = n.hashCode() | 1;
+        long[] state = n.getState();
+        int mask = capacity - 1;
+        int slot = mix(hash) & mask;
+        for (; hashes[slot] != 0; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash && matches(slot, n.getCity().id, state)) {
+                if (!onlyIfLower || cost < costs[slot]) {
+                    costs[slot] = cost;
+                    return true;
+                }
+                return false;
+            }
+        }
+
+        //the state is not in the set, the table only grows for an insertion
+        if (size >= MAX_LOAD * capacity) {
+            grow();
+            mask = capacity - 1;
+            slot = mix(hash) & mask;
+            while (hashes[slot] != 0) slot = (slot + 1) & mask;
+        }
+        hashes[slot] = hash;
+        int k = slot * stride;
+        keys[k] = n.getCity().id;
+        System.arraycopy(state, 0, keys, k + 1, state.length);
+        costs[slot] = cost;
+        size++;
+        return true;
+    }
+
+    /**
+     * returns the cost stored for the state of n, or positive infinity if it is not in the set
+     */
+    public double get(Node n) {
+        int hash = n.hashCode() | 1;
+        long[] state = n.getState();
+        int mask = capacity - 1;
+        for (int slot = mix(hash) & mask; hashes[slot] != 0; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash && matches(slot, n.getCity().id, state)) return costs[slot];
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    private boolean matches(int slot, int city, long[] state) {
+        int k = slot * stride;
+        if (keys[k] != city) return false;
+        for (int w = 0; w < state.length; w++) {
+            if (keys[k + 1 + w] != state[w]) return false;
+        }
+        return true;
+    }
+
+    private static int mix(int hash) {
+        //spread the bits, the hash of a node is dominated by its low words
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private void grow() {
+        if (capacity >= (1 << 30) || bytesFor(2L * capacity) > maxBytes) {
+            throw new FullException("the closed set is full: " + size + " states, "
+                    + (getMemoryUsage() >> 20) + "MB used of a budget of " + (maxBytes >> 20) + "MB");
+        }
+        int[] oldHashes = hashes;
+        long[] oldKeys = keys;
+        double[] oldCosts = costs;
+        allocate(2 * capacity);
+
+        int mask = capacity - 1;
+        for (int old = 0; old < oldHashes.length; old++) {
+            if (oldHashes[old] == 0) continue;
+            int slot = mix(oldHashes[old]) & mask;
+            while (hashes[slot] != 0) slot = (slot + 1) & mask;
+            hashes[slot] = oldHashes[old];
+            System.arraycopy(oldKeys, old * stride, keys, slot * stride, stride);
+            costs[slot] = oldCosts[old];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * returns the memory used by the table, in bytes
+     */
+    public long getMemoryUsage() {
+        return bytesFor(capacity);
+    }
+
+    /**
+     * returns the largest number of states the table can hold within its memory budget
+     */
+    public long getMaxSize() {
+        long capacity = INITIAL_CAPACITY;
+        while (capacity < (1 << 30) && bytesFor(2 * capacity) <= maxBytes) capacity *= 2;
+        return (long) (MAX_LOAD * capacity);
+    }
+}
@@ -2,6 +2,8 @@ package deliberative;
 
 /* import table */
 
+import logist.LogistSettings;
+import logist.config.Parsers;
 import logist.simulation.Vehicle;
 import logist.agent.Agent;
 import logist.behavior.DeliberativeBehavior;
@@ -12,8 +14,11 @@ import logist.task.TaskSet;
 import logist.topology.Topology;
 import logist.topology.Topology.City;
 
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
 import java.util.*;
-import java.util.function.ToDoubleFunction;
 
 /**
  * An optimal planner for one vehicle.
@@ -21,10 +26,11 @@ import java.util.function.ToDoubleFunction;
 @SuppressWarnings("unused")
 public class Deliberative implements DeliberativeBehavior {
 
-    enum Algorithm {BFS, ASTAR, NAIVE}
+    enum Algorithm {BFS, ASTAR, ASTAR_MST, HDASTAR, IDASTAR, SMASTAR, ARASTAR, NAIVE}
 
     /* Environment */
     Topology topology;
+    TopologyIndex index;
     TaskDistribution td;
 
     /* the properties of the agent */
@@ -33,10 +39,28 @@ public class Deliberative implements DeliberativeBehavior {
 
     /* the planning class */
     Algorithm algorithm;
+    long closedSetBytes;
+    boolean macroMoves;
+    int threads;
+    int nodeBudget;
+    double initialWeight;
+    double weightStep;
+    long planTimeout; //in milliseconds
+    boolean incremental;
+    boolean dominance;
+
+    /* kept between the A* searches for the incremental replanning */
+    Problem lastProblem;
+    MstHeuristic lastMst;
+    ClosedSet costToGo; //lower bounds of the distance left to travel from the states expanded before
+
+    /* statistics of the last search */
+    long visitedNodes;
 
     @Override
     public void setup(Topology topology, TaskDistribution td, Agent agent) {
         this.topology = topology;
+        this.index = TopologyIndex.of(topology);
         this.td = td;
         this.agent = agent;
 
@@ -46,6 +70,39 @@ public class Deliberative implements DeliberativeBehavior {
 
         // Throws IllegalArgumentException if algorithm is unknown
         algorithm = Algorithm.valueOf(algorithmName.toUpperCase());
+
+        // Memory budget of the set of visited states, in MB. Defaults to a quarter of the maximum heap size
+        long closedSetMB = agent.readProperty("closed-set-mb", Long.class, Runtime.getRuntime().maxMemory() / 4 >> 20);
+        closedSetBytes = closedSetMB << 20;
+
+        // Whether the searches move directly to the cities where a task can be picked up or delivered,
+        // instead of moving to the neighbour cities one at a time
+        macroMoves = agent.readProperty("macro-moves", Boolean.class, true);
+
+        // Number of worker threads of the HDASTAR algorithm, defaults to the number of processors
+        threads = Math.max(1, agent.readProperty("threads", Integer.class, Runtime.getRuntime().availableProcessors()));
+
+        // Maximum number of nodes kept in memory by the SMASTAR algorithm
+        nodeBudget = agent.readProperty("node-budget", Integer.class, 1000000);
+
+        // Weight of the heuristic in the first search of the ARASTAR algorithm, and its decrease after each search
+        initialWeight = agent.readProperty("initial-weight", Double.class, 3.0);
+        weightStep = agent.readProperty("weight-step", Double.class, 0.5);
+
+        // Whether A* reuses the costs learned by the last search when the tasks of the new plan are among its tasks
+        incremental = agent.readProperty("incremental", Boolean.class, true);
+
+        // Whether A* prunes the states dominated by a processed state with the same city and remaining tasks
+        dominance = agent.readProperty("dominance", Boolean.class, true);
+
+        // the plan method cannot execute more than planTimeout milliseconds
+        try {
+            LogistSettings ls = Parsers.parseSettings("config" + File.separator + "settings_default.xml");
+            planTimeout = ls.get(LogistSettings.TimeoutKey.PLAN);
+        } catch (Exception exc) {
+            System.out.println("There was a problem loading the configuration file.");
+            planTimeout = Long.MAX_VALUE;
+        }
     }
 
     @Override
@@ -53,41 +110,63 @@ public class Deliberative implements DeliberativeBehavior {
         Plan plan;
 
         long startTime = System.nanoTime();
+        resetPeakHeap();
         // Compute the plan with the selected algorithm.
-        switch (algorithm) {
-            case ASTAR:
-                plan = aStarPlan(vehicle, tasks);
-                break;
-            case BFS:
-                plan = bfsPlan(vehicle, tasks);
-                break;
-            case NAIVE:
-                plan = naivePlan(vehicle, tasks);
-                break;
-            default:
-                throw new AssertionError("Should not happen.");
+        try {
+            plan = searchPlan(vehicle, tasks, startTime);
+        } catch (ClosedSet.FullException e) {
+            //the search cannot go on within closed-set-mb, the vehicle still needs a valid plan
+            System.out.println(e.getMessage() + ", using the naive plan");
+            plan = naivePlan(vehicle, tasks);
         }
 
         System.out.println(plan);
         System.out.println(plan.totalDistance());
         System.out.println("time to compute: " + (System.nanoTime() - startTime) / 1e6 + "ms");
+        System.out.println("peak heap: " + (getPeakHeap() >> 20) + "MB");
 
         return plan;
     }
 
+    /**
+     * returns the plan computed with the selected algorithm
+     */
+    private Plan searchPlan(Vehicle vehicle, TaskSet tasks, long startTime) {
+        switch (algorithm) {
+            case ASTAR:
+            case ASTAR_MST:
+                return aStarPlan(vehicle, tasks);
+            case HDASTAR:
+                return hdaStarPlan(vehicle, tasks);
+            case IDASTAR:
+                return idaStarPlan(vehicle, tasks);
+            case SMASTAR:
+                return smaStarPlan(vehicle, tasks);
+            case ARASTAR:
+                return araStarPlan(vehicle, tasks, startTime);
+            case BFS:
+                return bfsPlan(vehicle, tasks);
+            case NAIVE:
+                return naivePlan(vehicle, tasks);
+            default:
+                throw new AssertionError("Should not happen.");
+        }
+    }
+
     /**
      * return the best plan using BFS algorithm
      */
     private Plan bfsPlan(Vehicle vehicle, TaskSet tasks) {
     	System.out.println("generating BFS plan");
 
-    	Map<Plan, Double> plans = new HashMap<>(); //map of plans and their costs
         City currentCity = vehicle.getCurrentCity();
 
-        Node initialNode = new Node(null, currentCity, vehicle.getCurrentTasks(), tasks, vehicle.capacity());
+        Problem problem = new Problem(index, vehicle.getCurrentTasks(), tasks, vehicle.capacity(), macroMoves);
+        Node initialNode = problem.createInitialNode(currentCity, vehicle.getCurrentTasks(), tasks);
 
         LinkedList<Node> Q = new LinkedList<>(); //queue of nodes to be processed
-        HashMap<Node, Double> C = new HashMap<>();
+        ClosedSet C = new ClosedSet(problem, closedSetBytes);
+        Node best = null; //final node of the cheapest plan found
 
         Q.add(initialNode);
 
@@ -96,57 +175,63 @@ public class Deliberative implements DeliberativeBehavior {
             Node n = Q.pop();
 
             if(n.isFinalState()) {
-            	//found a plan
-            	Plan plan = generatePlanFromLastNode(n);
-                plans.put(plan, n.getGCost());
+            	//found a plan, only the cheapest one is kept
+                if (best == null || n.getGCost() < best.getGCost()) best = n;
             }
             //check if node was visited
-            if (isLowestCostForState(C,n, node -> node.getGCost())) {
-            	C.put(n, n.getGCost());
+            if (C.putIfLower(n, n.getGCost())) {
             	//add all the children of n to the queue
                 Q.addAll(n.generateChildren());
             }
         }
 
-        if (plans.isEmpty()) {
+        Plan plan = new Plan(currentCity);
+        if (best == null) {
             System.out.println("Error: no path found");
+        } else {
+            // get the optimal plan
+            plan = generatePlanFromLastNode(best);
         }
-        // get the optimal plan
-        Plan plan = getOptimalPlan(plans);
+        visitedNodes = C.size();
         System.out.println("finished BFS");
-        System.out.println("visited nodes:" + C.size());
+        System.out.println("visited nodes:" + C.size() + " (" + (C.getMemoryUsage() >> 10) + "KB)");
         return plan;
     }
 
-    /**
-     * return the plan with lowest cost in the map
-     */
-    private Plan getOptimalPlan(Map<Plan, Double> plans){
-    	Map.Entry<Plan, Double> min = null;   	
-    	for (Map.Entry<Plan, Double> entry : plans.entrySet()) {
-    		if (min == null || entry.getValue() < min.getValue()) {
-    	        min = entry;
-    	    }
-        }
-		return min.getKey();
-    }
-
     /**
      * return the best plan using A* algorithm
+     * if the tasks are among the ones of the last search (after planCancelled, or for another vehicle),
+     * the search is done in the same state space and its heuristic is improved with the costs learned by the last one
      */
     private Plan aStarPlan(Vehicle vehicle, TaskSet tasks) {
         System.out.println("generating A* plan");
 
         City currentCity = vehicle.getCurrentCity();
 
-        Node initialNode = new Node(null, currentCity, vehicle.getCurrentTasks(), tasks, vehicle.capacity());
+        Problem problem;
+        MstHeuristic mst = null;
+        if (incremental && lastProblem != null && lastProblem.maxCapacity == vehicle.capacity()
+                && lastProblem.contains(vehicle.getCurrentTasks()) && lastProblem.contains(tasks)) {
+            //the tasks of the last problem which are not given have no status, as if they were delivered
+            System.out.println("reusing the last search (" + costToGo.size() + " learned costs)");
+            problem = lastProblem;
+            mst = lastMst;
+        } else {
+            problem = new Problem(index, vehicle.getCurrentTasks(), tasks, vehicle.capacity(), macroMoves);
+            costToGo = incremental ? new ClosedSet(problem, closedSetBytes) : null;
+        }
+        if (mst == null && algorithm == Algorithm.ASTAR_MST) mst = new MstHeuristic(problem);
+        Node initialNode = problem.createInitialNode(currentCity, vehicle.getCurrentTasks(), tasks);
 
-        PriorityQueue<Node> Q = new PriorityQueue<>(Comparator.comparingDouble(
-                x -> x.getGCost() + h(x)
-        )); //queue of nodes to be processed, sorted according to the estimated total cost
-        HashMap<Node, Double> C = new HashMap<>(); //processed nodes and their cost
+        //queue of nodes to be processed, sorted according to the estimated total cost, one node per state
+        OpenList Q = new OpenList();
+        ClosedSet C = new ClosedSet(problem, closedSetBytes); //processed states and their cost
+        ArrayList<Node> expanded = new ArrayList<>(); //processed nodes, to learn their distance left to travel
+        DominanceIndex D = dominance ? new DominanceIndex(problem) : null;
+        long heuristicEvaluations = 1;
 
-        Q.add(initialNode);
+        initialNode.setHCost(h(initialNode, mst, costToGo));
+        Q.add(initialNode, initialNode.getHCost());
 
         Plan plan = new Plan(currentCity);
         while (!Q.isEmpty()) {
@@ -157,32 +242,207 @@ public class Deliberative implements DeliberativeBehavior {
                 //found the solution
                 //generate the planto get to the state n
                 plan = generatePlanFromLastNode(n);
+                learnCostToGo(expanded, n.getGCost());
                 break;
             }
 
-            if (isLowestCostForState(C, n, node -> node.getGCost() + h(node))) {
-                C.put(n, n.getGCost() + h(n));
-                //add all the children of n to the queue
-                Q.addAll(n.generateChildren());
-                //the queue is a PriorityQueue, thus it is always sorted
+            //a state dominating n may have been processed since n was added
+            if (D != null && D.hasDominating(n)) continue;
+            if (C.putIfLower(n, n.getGCost() + n.getHCost())) {
+                if (costToGo != null) expanded.add(n);
+                if (D != null) D.add(n);
+                //add the children of n to the queue, unless their state has already been reached with a lower cost
+                //or is dominated by a processed state
+                for (Node child : n.generateChildren()) {
+                    if (D != null && D.isDominated(child)) continue;
+                    child.setHCost(h(child, mst, costToGo));
+                    heuristicEvaluations++;
+                    double f = child.getGCost() + child.getHCost();
+                    if (f < C.get(child)) {
+                        Q.add(child, f);
+                    }
+                }
             }
         }
+        lastProblem = problem;
+        lastMst = mst;
+        visitedNodes = C.size();
         System.out.println("finished A*");
-        System.out.println("visited nodes:" + C.size());
+        System.out.println("visited nodes:" + C.size() + " (" + (C.getMemoryUsage() >> 10) + "KB)");
+        if (D != null) System.out.println("dominated states pruned:" + D.getPruned());
+        System.out.println("max open list size:" + Q.getMaxSize());
+        System.out.println("heuristic evaluations:" + heuristicEvaluations);
         return plan;
     }
 
     /**
-     * return true if the list doesn't contain the node or if it does contain it but with a higher cost.
+     * stores the distance left to travel from the expanded nodes, given the cost of the optimal plan
+     * a node n expanded by A* has g(n) at least the cost to reach it, so cost - g(n) is at most the distance
+     * left to travel from its state, whatever the start of the next search
      */
-    private boolean isLowestCostForState(HashMap<Node, Double> list, Node n, ToDoubleFunction<Node> costFunction) {
-        if(!list.containsKey(n)){
-            return true;
+    private void learnCostToGo(List<Node> expanded, double cost) {
+        if (costToGo == null) return;
+        long maxSize = costToGo.getMaxSize();
+        for (Node n : expanded) {
+            double known = costToGo.get(n);
+            if (known == Double.POSITIVE_INFINITY) {
+                if (costToGo.size() < maxSize) costToGo.put(n, cost - n.getGCost());
+            } else if (cost - n.getGCost() > known) {
+                costToGo.put(n, cost - n.getGCost());
+            }
         }
-        else{
-            Double currentBest = list.get(n);
-            return costFunction.applyAsDouble(n) < currentBest;
+    }
+
+    /**
+     * return the best plan using hash-distributed A* on several threads, with the spanning tree heuristic
+     */
+    private Plan hdaStarPlan(Vehicle vehicle, TaskSet tasks) {
+        System.out.println("generating HDA* plan with " + threads + " threads");
+
+        City currentCity = vehicle.getCurrentCity();
+
+        Problem problem = new Problem(index, vehicle.getCurrentTasks(), tasks, vehicle.capacity(), macroMoves);
+        Node initialNode = problem.createInitialNode(currentCity, vehicle.getCurrentTasks(), tasks);
+
+        //each worker has its own spanning tree heuristic, as its buffers and memo are not shared
+        HdaStar search = new HdaStar(problem, threads, closedSetBytes, () -> {
+            MstHeuristic mst = new MstHeuristic(problem);
+            return node -> h(node, mst);
+        });
+
+        Plan plan = new Plan(currentCity);
+        try {
+            Node n = search.search(initialNode);
+            if (n != null) plan = generatePlanFromLastNode(n);
+            else System.out.println("Error: no path found");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("HDA* was interrupted");
         }
+        visitedNodes = search.getVisitedNodes();
+        System.out.println("finished HDA*");
+        System.out.println("visited nodes:" + visitedNodes + " (" + (search.getMemoryUsage() >> 10) + "KB)");
+        System.out.println("expanded nodes per thread:" + Arrays.toString(search.getExpansions()));
+        return plan;
+    }
+
+    /**
+     * return the best plan using IDA*, with the spanning tree heuristic
+     */
+    private Plan idaStarPlan(Vehicle vehicle, TaskSet tasks) {
+        System.out.println("generating IDA* plan");
+
+        City currentCity = vehicle.getCurrentCity();
+
+        Problem problem = new Problem(index, vehicle.getCurrentTasks(), tasks, vehicle.capacity(), macroMoves);
+        Node initialNode = problem.createInitialNode(currentCity, vehicle.getCurrentTasks(), tasks);
+        MstHeuristic mst = new MstHeuristic(problem);
+        IdaStar search = new IdaStar(problem, node -> h(node, mst), closedSetBytes);
+
+        Plan plan = new Plan(currentCity);
+        Node n = search.search(initialNode);
+        if (n != null) plan = generatePlanFromLastNode(n);
+        else System.out.println("Error: no path found");
+
+        visitedNodes = search.getExpansions();
+        System.out.println("finished IDA*");
+        System.out.println("visited nodes:" + visitedNodes + " in " + search.getIterations() + " iterations ("
+                + (search.getTableMemoryUsage() >> 10) + "KB of transposition table)");
+        return plan;
+    }
+
+    /**
+     * return the best plan using SMA* within the node budget, with the spanning tree heuristic
+     * if the optimal plan does not fit in the budget, IDA* is used instead
+     */
+    private Plan smaStarPlan(Vehicle vehicle, TaskSet tasks) {
+        System.out.println("generating SMA* plan with a budget of " + nodeBudget + " nodes");
+
+        City currentCity = vehicle.getCurrentCity();
+
+        Problem problem = new Problem(index, vehicle.getCurrentTasks(), tasks, vehicle.capacity(), macroMoves);
+        Node initialNode = problem.createInitialNode(currentCity, vehicle.getCurrentTasks(), tasks);
+        MstHeuristic mst = new MstHeuristic(problem);
+        SmaStar search = new SmaStar(node -> h(node, mst), nodeBudget);
+
+        Node n = search.search(initialNode);
+        visitedNodes = search.getGenerated();
+        System.out.println("finished SMA*");
+        System.out.println("visited nodes:" + visitedNodes + " (at most " + search.getMaxNodesUsed() + " in memory)");
+        if (n == null) {
+            System.out.println("the plan does not fit in the node budget, using IDA*");
+            return idaStarPlan(vehicle, tasks);
+        }
+        return generatePlanFromLastNode(n);
+    }
+
+    /**
+     * return the best plan found using ARA* before the plan timeout, with the spanning tree heuristic
+     * the naive plan is returned if no plan was found in time
+     */
+    private Plan araStarPlan(Vehicle vehicle, TaskSet tasks, long startTime) {
+        System.out.println("generating ARA* plan");
+
+        City currentCity = vehicle.getCurrentCity();
+
+        Problem problem = new Problem(index, vehicle.getCurrentTasks(), tasks, vehicle.capacity(), macroMoves);
+        Node initialNode = problem.createInitialNode(currentCity, vehicle.getCurrentTasks(), tasks);
+        MstHeuristic mst = new MstHeuristic(problem);
+        //keep a tenth of the timeout to build and return the plan
+        long deadline = startTime + (long) Math.min(0.9 * planTimeout * 1e6, Long.MAX_VALUE / 2);
+        AraStar search = new AraStar(problem, node -> h(node, mst), closedSetBytes, deadline);
+
+        Node n = search.search(initialNode, initialWeight, weightStep);
+        visitedNodes = search.getExpansions();
+        System.out.println("finished ARA*" + (search.isTimedOut() ? " (timeout)" : ""));
+        System.out.println("visited nodes:" + visitedNodes + " in " + search.getIterations() + " iterations");
+        if (n == null) {
+            System.out.println("no plan found before the timeout, using the naive plan");
+            return naivePlan(vehicle, tasks);
+        }
+        System.out.println("weight:" + search.getWeight() + ", suboptimality bound:" + search.getBound());
+        return generatePlanFromLastNode(n);
+    }
+
+    /**
+     * resets the peak usage of the heap memory pools
+     */
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+    }
+
+    /**
+     * returns the sum of the peak usages of the heap memory pools since the last reset, in bytes
+     */
+    private static long getPeakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+    /**
+     * heuristic: the highest of h(n, mst) and, if given, of the distance left to travel learned by the previous searches
+     */
+    private double h(Node n, MstHeuristic mst, ClosedSet costToGo) {
+        double h = h(n, mst);
+        if (costToGo != null) {
+            double learned = costToGo.get(n);
+            if (learned != Double.POSITIVE_INFINITY) h = Math.max(h, learned);
+        }
+        return h;
+    }
+
+    /**
+     * heuristic: the highest of the task heuristic and, if given, of the spanning tree heuristic
+     */
+    private double h(Node n, MstHeuristic mst) {
+        double h = h(n);
+        if (mst != null) h = Math.max(h, mst.estimate(n));
+        return h;
     }
 
     /**
@@ -190,61 +450,48 @@ public class Deliberative implements DeliberativeBehavior {
      * if no task remaining, distance left of longest task
      */
     private double h(Node n) {
-        if (n.getRemainingTasks().isEmpty()) {
-            if (n.getCarriedTasks().isEmpty()) {
-                return 0.0;
+        Problem problem = n.getProblem();
+        double max = 0.0;
+        if (!n.hasRemainingTasks()) {
+            for (int i = n.nextCarriedTask(0); i >= 0; i = n.nextCarriedTask(i + 1)) {
+                max = Math.max(max, index.distance(n.getCity(), problem.deliveryCity[i]));
             }
-            else
-                return n.getCarriedTasks().stream()
-                    .mapToDouble(task ->n.getCity().distanceTo(task.deliveryCity))
-                    .max()
-                    .orElseThrow(NoSuchElementException::new);
         }
         else{
-            return n.getRemainingTasks().stream()
-                    .mapToDouble(task ->n.getCity().distanceTo(task.pickupCity) + task.pathLength())
-                    .max()
-                    .orElseThrow(NoSuchElementException::new);
+            for (int i = n.nextRemainingTask(0); i >= 0; i = n.nextRemainingTask(i + 1)) {
+                max = Math.max(max, index.distance(n.getCity(), problem.pickupCity[i]) + problem.pathLength[i]);
+            }
         }
+        return max;
     }
 
 
-    private Plan generatePlanFromLastNode(Node endNode){
-        //generate the list of traversed nodes from start to end
+    /**
+     * returns the plan leading to endNode, following the actions recorded by the nodes
+     */
+    private Plan generatePlanFromLastNode(Node endNode) {
+        //list of traversed nodes from end to start
         ArrayList<Node> path = new ArrayList<>();
-        Node currentNode = endNode;
-        do {
-            path.add(0, currentNode);
-            currentNode = currentNode.getParent();
-        } while (currentNode.getParent()!=null);
-        path.add(0, currentNode);
-
-        //convert the list of nodes to a plan
-        City initialCity = path.get(0).getCity();
-        Plan plan = new Plan(initialCity);
-
-        for(int i = 0;i<path.size()-1; i++){
-            Node node = path.get(i);
-            Node nextNode = path.get(i+1);
-
-            TaskSet carriedTasks = node.getCarriedTasks().clone();
-            TaskSet carriedTasksNext = nextNode.getCarriedTasks().clone();
+        for (Node node = endNode; node != null; node = node.getParent()) {
+            path.add(node);
+        }
 
-            if(!node.getCity().equals(nextNode.getCity())){
-                //if the city changed -> move
-                plan.appendMove(nextNode.getCity());
-            }
-            else if(carriedTasksNext.size() < carriedTasks.size()){
-                //lost a task -> delivery
-                carriedTasks.removeAll(carriedTasksNext);
-                Task task = carriedTasks.iterator().next();
-                plan.appendDelivery(task);
-            }
-            else if(node.getCarriedTasks().size() < nextNode.getCarriedTasks().size()){
-                //gained a task -> pickup
-                carriedTasksNext.removeAll(carriedTasks);
-                Task task = carriedTasksNext.iterator().next();
-                plan.appendPickup(task);
+        //convert the list of nodes to a plan, from start to end
+        Problem problem = endNode.getProblem();
+        Plan plan = new Plan(path.get(path.size() - 1).getCity());
+        for (int i = path.size() - 2; i >= 0; i--) {
+            Node node = path.get(i);
+            switch (node.getAction()) {
+                case MOVE:
+                    //move along the shortest path
+                    index.appendPath(plan, node.getParent().getCity(), node.getCity());
+                    break;
+                case PICKUP:
+                    plan.appendPickup(problem.getTask(node.getTask()));
+                    break;
+                case DELIVERY:
+                    plan.appendDelivery(problem.getTask(node.getTask()));
+                    break;
             }
         }
         return plan;
@@ -256,14 +503,12 @@ public class Deliberative implements DeliberativeBehavior {
 
         for (Task task : tasks) {
             // move: current city => pickup location
-            for (City city : current.pathTo(task.pickupCity))
-                plan.appendMove(city);
+            index.appendPath(plan, current, task.pickupCity);
 
             plan.appendPickup(task);
 
             // move: pickup location => delivery location
-            for (City city : task.path())
-                plan.appendMove(city);
+            index.appendPath(plan, task.pickupCity, task.deliveryCity);
 
             plan.appendDelivery(task);
 
@@ -279,5 +524,6 @@ public class Deliberative implements DeliberativeBehavior {
         if (!carriedTasks.isEmpty()) {
             //this is not needed as vehicle.getCurrentTasks() is used for the plan generation
         }
+        //the next A* search reuses the costs learned by the last one, as long as the tasks are among its tasks
     }
 }
@@ -0,0 +1,125 @@
+package deliberative;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Index of the processed states of a search by city and remaining tasks, used to prune dominated states.
+ * A state dominates another one with the same city and the same remaining tasks if it carries a subset of its tasks
+ * (the others being already delivered) and was reached with a lower or equal cost: every plan from the dominated state
+ * can be followed from the dominating one, skipping the deliveries and the detours to the delivery cities, as the
+ * weight is lower and the moves go along the shortest paths. Pruning dominated states keeps the plans optimal.
+ */
+public class DominanceIndex {
+    private final int words;
+    private final HashMap<Key, Bucket> buckets = new HashMap<>();
+    private long pruned;
+
+    public DominanceIndex(Problem problem) {
+        this.words = problem.words;
+    }
+
+    /**
+     * city and remaining tasks of a node, sharing the state of the node
+     */
+    private class Key {
+        final int city;
+        final long[] state;
+        final int hash;
+
+        Key(Node n) {
+            city = n.getCity().id;
+            state = n.getState();
+            int hash = city;
+            for (int w = 0; w < words; w++) hash = 31 * hash + Long.hashCode(state[w]);
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            Key key = (Key) o;
+            if (hash != key.hash || city != key.city) return false;
+            for (int w = 0; w < words; w++) {
+                if (state[w] != key.state[w]) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * carried tasks and cost of the processed states of one key, none of which dominates another one
+     */
+    private class Bucket {
+        long[] carried = new long[4 * words];
+        double[] costs = new double[4];
+        int size;
+    }
+
+    /**
+     * returns true, and counts n as pruned, if a processed state dominates the state of n
+     */
+    public boolean isDominated(Node n) {
+        if (!hasDominating(n)) return false;
+        pruned++;
+        return true;
+    }
+
+    /**
+     * returns true if a processed state dominates the state of n, without counting it
+     * (for a node already checked when it was generated)
+     */
+    public boolean hasDominating(Node n) {
+        Bucket bucket = buckets.get(new Key(n));
+        if (bucket == null) return false;
+        long[] state = n.getState();
+        for (int e = 0; e < bucket.size; e++) {
+            if (bucket.costs[e] <= n.getGCost() && isSubset(bucket.carried, e * words, state, words)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * adds the state of a processed node, and removes the states it dominates
+     */
+    public void add(Node n) {
+        Key key = new Key(n);
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket());
+        long[] state = n.getState();
+
+        int size = 0;
+        for (int e = 0; e < bucket.size; e++) {
+            if (n.getGCost() <= bucket.costs[e] && isSubset(state, words, bucket.carried, e * words)) continue;
+            System.arraycopy(bucket.carried, e * words, bucket.carried, size * words, words);
+            bucket.costs[size++] = bucket.costs[e];
+        }
+        if (size == bucket.costs.length) {
+            bucket.carried = Arrays.copyOf(bucket.carried, 2 * size * words);
+            bucket.costs = Arrays.copyOf(bucket.costs, 2 * size);
+        }
+        System.arraycopy(state, words, bucket.carried, size * words, words);
+        bucket.costs[size++] = n.getGCost();
+        bucket.size = size;
+    }
+
+    /**
+     * returns true if the words of a from offset a are a subset of the words of b from offset b
+     */
+    private boolean isSubset(long[] a, int aOffset, long[] b, int bOffset) {
+        for (int w = 0; w < words; w++) {
+            if ((a[aOffset + w] & ~b[bOffset + w]) != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * returns the number of nodes found dominated by isDominated()
+     */
+    public long getPruned() {
+        return pruned;
+    }
+}
@@ -0,0 +1,178 @@
+package deliberative;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Hash-distributed A* (HDA*): every state is owned by one worker thread, chosen from its hash.
+ * Each worker has its own open list and closed set, and sends the children it generates to their owner
+ * through a lock-free queue. The best plan found so far bounds the search: nodes whose f-value is not
+ * lower than its cost are dropped.
+ *
+ * The search ends when no worker has anything left to expand and no node is in transit. This is detected
+ * with a single counter of the active workers plus the nodes in transit: a node is counted before it is
+ * sent, and a worker counts itself again before it stops counting a node it received, so the counter only
+ * reaches 0 when the search is over.
+ */
+public class HdaStar {
+    private final Problem problem;
+    private final Worker[] workers;
+
+    private final AtomicInteger work; //active workers + nodes in transit
+    private volatile boolean done;
+
+    private Node best; //best final node found so far
+    private volatile double bestCost = Double.POSITIVE_INFINITY;
+
+    /**
+     * heuristics gives a heuristic function for each worker (the function does not need to be thread-safe)
+     */
+    public HdaStar(Problem problem, int threads, long closedSetBytes, Supplier<ToDoubleFunction<Node>> heuristics) {
+        this.problem = problem;
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(i, heuristics.get(), closedSetBytes / threads);
+        }
+        work = new AtomicInteger(threads);
+    }
+
+    /**
+     * returns the final node of the optimal plan starting from the given node, or null if there is none
+     */
+    public Node search(Node initialNode) throws InterruptedException {
+        Worker owner = workers[owner(initialNode)];
+        initialNode.setHCost(owner.h.applyAsDouble(initialNode));
+        work.incrementAndGet();
+        owner.inbox.add(initialNode);
+
+        Thread[] threads = new Thread[workers.length];
+        for (int i = 0; i < workers.length; i++) {
+            threads[i] = new Thread(workers[i], "hda-worker-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (Worker worker : workers) {
+            if (worker.error != null) throw worker.error;
+        }
+        return best;
+    }
+
+    private int owner(Node n) {
+        int hash = n.hashCode() * 0x9E3779B9;
+        return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % workers.length;
+    }
+
+    private synchronized void offerSolution(Node n) {
+        if (n.getGCost() < bestCost) {
+            best = n;
+            bestCost = n.getGCost();
+        }
+    }
+
+    public long getVisitedNodes() {
+        long visited = 0;
+        for (Worker worker : workers) visited += worker.closed.size();
+        return visited;
+    }
+
+    public long getMemoryUsage() {
+        long bytes = 0;
+        for (Worker worker : workers) bytes += worker.closed.getMemoryUsage();
+        return bytes;
+    }
+
+    /**
+     * returns the number of nodes expanded by each worker
+     */
+    public long[] getExpansions() {
+        long[] expansions = new long[workers.length];
+        for (int i = 0; i < workers.length; i++) expansions[i] = workers[i].expansions;
+        return expansions;
+    }
+
+    private class Worker implements Runnable {
+        final int id;
+        final ToDoubleFunction<Node> h;
+        final ConcurrentLinkedQueue<Node> inbox = new ConcurrentLinkedQueue<>();
+        final OpenList open = new OpenList();
+        final ClosedSet closed;
+        long expansions;
+        RuntimeException error;
+
+        Worker(int id, ToDoubleFunction<Node> h, long closedSetBytes) {
+            this.id = id;
+            this.h = h;
+            this.closed = new ClosedSet(problem, closedSetBytes);
+        }
+
+        @Override
+        public void run() {
+            try {
+                search();
+            } catch (RuntimeException e) {
+                error = e;
+                done = true;
+            }
+        }
+
+        private void search() {
+            boolean active = true;
+            while (!done) {
+                //receive the nodes sent by the other workers
+                Node received;
+                while ((received = inbox.poll()) != null) {
+                    if (!active) {
+                        work.incrementAndGet();
+                        active = true;
+                    }
+                    double f = received.getGCost() + received.getHCost();
+                    if (f < closed.get(received)) open.add(received, f);
+                    work.decrementAndGet();
+                }
+
+                if (!open.isEmpty()) {
+                    expand();
+                } else if (active) {
+                    active = false;
+                    if (work.decrementAndGet() == 0) done = true;
+                } else {
+                    LockSupport.parkNanos(10_000);
+                }
+            }
+        }
+
+        private void expand() {
+            double f = open.peekCost();
+            Node n = open.poll();
+            //no better plan can be found through n
+            if (f >= bestCost) return;
+
+            if (n.isFinalState()) {
+                offerSolution(n);
+                return;
+            }
+            if (!closed.putIfLower(n, f)) return;
+
+            expansions++;
+            for (Node child : n.generateChildren()) {
+                child.setHCost(h.applyAsDouble(child));
+                double childF = child.getGCost() + child.getHCost();
+                if (childF >= bestCost) continue;
+
+                Worker owner = workers[owner(child)];
+                if (owner == this) {
+                    if (childF < closed.get(child)) open.add(child, childF);
+                } else {
+                    work.incrementAndGet();
+                    owner.inbox.add(child);
+                }
+            }
+        }
+    }
+}
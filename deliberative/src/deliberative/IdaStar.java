@@ -0,0 +1,82 @@
+package deliberative;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Iterative deepening A* (IDA*): depth-first searches bounded by an f-value, the bound of each iteration
+ * being the lowest f-value that exceeded the previous one. Only the current path is kept in memory,
+ * plus a transposition table of the lowest g-value with which each state was reached during the iteration,
+ * which stops inserting states once its memory budget is reached.
+ */
+public class IdaStar {
+    private final Problem problem;
+    private final ToDoubleFunction<Node> h;
+    private final long tableBytes;
+
+    private ClosedSet table;
+    private long tableMaxSize;
+    private double nextBound;
+    private long expansions;
+    private int iterations;
+
+    public IdaStar(Problem problem, ToDoubleFunction<Node> h, long tableBytes) {
+        this.problem = problem;
+        this.h = h;
+        this.tableBytes = tableBytes;
+    }
+
+    /**
+     * returns the final node of the optimal plan starting from the given node, or null if there is none
+     */
+    public Node search(Node initialNode) {
+        initialNode.setHCost(h.applyAsDouble(initialNode));
+        double bound = initialNode.getHCost();
+        while (true) {
+            iterations++;
+            table = new ClosedSet(problem, tableBytes);
+            tableMaxSize = table.getMaxSize();
+            nextBound = Double.POSITIVE_INFINITY;
+
+            Node goal = search(initialNode, bound);
+            if (goal != null) return goal;
+            if (nextBound == Double.POSITIVE_INFINITY) return null;
+            bound = nextBound;
+        }
+    }
+
+    private Node search(Node n, double bound) {
+        double f = n.getGCost() + n.getHCost();
+        if (f > bound) {
+            nextBound = Math.min(nextBound, f);
+            return null;
+        }
+        if (n.isFinalState()) return n;
+
+        //the state was already reached with a lower or equal cost in this iteration
+        if (table.get(n) <= n.getGCost()) return null;
+        if (table.size() < tableMaxSize) table.putIfLower(n, n.getGCost());
+
+        expansions++;
+        for (Node child : n.generateChildren()) {
+            child.setHCost(h.applyAsDouble(child));
+            Node goal = search(child, bound);
+            if (goal != null) return goal;
+        }
+        return null;
+    }
+
+    /**
+     * returns the number of nodes expanded over all the iterations
+     */
+    public long getExpansions() {
+        return expansions;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public long getTableMemoryUsage() {
+        return (table == null) ? 0 : table.getMemoryUsage();
+    }
+}
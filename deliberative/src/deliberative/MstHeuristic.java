@@ -0,0 +1,132 @@
+package deliberative;
+
+import logist.topology.Topology.City;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Admissible A* heuristic: the weight of a minimum spanning tree over the cities still to visit
+ * (pickup and delivery cities of the remaining tasks, delivery cities of the carried tasks),
+ * plus the distance from the current city to the closest of them.
+ * Any route visiting these cities is a spanning path starting with such a connection, so it cannot be shorter.
+ *
+ * The cities of the problem are numbered locally, their pairwise distances are copied to a small table,
+ * and the weight of the tree is memoised for each set of cities.
+ */
+public class MstHeuristic {
+    private final TopologyIndex index;
+    private final int size; //number of distinct cities of the problem
+    private final City[] cities;
+    private final double[] pairwise;
+    private final int[] pickup; //local city of each task
+    private final int[] delivery;
+    private final HashMap<Long, Double> memo = new HashMap<>();
+
+    //buffers of Prim's algorithm
+    private final boolean[] toVisit;
+    private final double[] bestEdge;
+    private final boolean[] inTree;
+
+    public MstHeuristic(Problem problem) {
+        index = problem.index;
+        int[] local = new int[index.size()];
+        City[] cities = new City[index.size()];
+        int size = 0;
+        pickup = new int[problem.size()];
+        delivery = new int[problem.size()];
+        for (int i = 0; i < problem.size(); i++) {
+            City[] taskCities = {problem.pickupCity[i], problem.deliveryCity[i]};
+            for (City city : taskCities) {
+                if (local[city.id] == 0) {
+                    cities[size] = city;
+                    local[city.id] = ++size;
+                }
+            }
+            pickup[i] = local[problem.pickupCity[i].id] - 1;
+            delivery[i] = local[problem.deliveryCity[i].id] - 1;
+        }
+        this.size = size;
+        this.cities = new City[size];
+        System.arraycopy(cities, 0, this.cities, 0, size);
+
+        pairwise = new double[size * size];
+        for (int a = 0; a < size; a++) {
+            for (int b = 0; b < size; b++) {
+                pairwise[a * size + b] = index.distance(this.cities[a], this.cities[b]);
+            }
+        }
+        toVisit = new boolean[size];
+        bestEdge = new double[size];
+        inTree = new boolean[size];
+    }
+
+    /**
+     * returns a lower bound of the distance left to travel from node n
+     */
+    public double estimate(Node n) {
+        Arrays.fill(toVisit, false);
+        long mask = 0;
+        for (int i = n.nextRemainingTask(0); i >= 0; i = n.nextRemainingTask(i + 1)) {
+            toVisit[pickup[i]] = true;
+            toVisit[delivery[i]] = true;
+        }
+        for (int i = n.nextCarriedTask(0); i >= 0; i = n.nextCarriedTask(i + 1)) {
+            toVisit[delivery[i]] = true;
+        }
+
+        double connection = Double.POSITIVE_INFINITY;
+        for (int a = 0; a < size; a++) {
+            if (!toVisit[a]) continue;
+            if (a < 64) mask |= 1L << a;
+            connection = Math.min(connection, index.distance(n.getCity(), cities[a]));
+        }
+        if (connection == Double.POSITIVE_INFINITY) return 0.0;
+
+        //the memo is keyed by the set of cities, which fits in a long for up to 64 cities
+        if (size > 64) return connection + spanningTreeWeight(toVisit);
+        Double weight = memo.get(mask);
+        if (weight == null) {
+            weight = spanningTreeWeight(toVisit);
+            memo.put(mask, weight);
+        }
+        return connection + weight;
+    }
+
+    /**
+     * returns the weight of a minimum spanning tree over the given cities (Prim's algorithm)
+     */
+    private double spanningTreeWeight(boolean[] toVisit) {
+        int remaining = 0, first = -1;
+        for (int a = 0; a < size; a++) {
+            inTree[a] = !toVisit[a];
+            bestEdge[a] = Double.POSITIVE_INFINITY;
+            if (toVisit[a]) {
+                remaining++;
+                if (first < 0) first = a;
+            }
+        }
+
+        double weight = 0;
+        int added = first;
+        while (true) {
+            inTree[added] = true;
+            if (--remaining == 0) return weight;
+            int next = -1;
+            for (int a = 0; a < size; a++) {
+                if (inTree[a]) continue;
+                bestEdge[a] = Math.min(bestEdge[a], pairwise[added * size + a]);
+                if (next < 0 || bestEdge[a] < bestEdge[next]) next = a;
+            }
+            weight += bestEdge[next];
+            added = next;
+        }
+    }
+
+    /**
+     * returns the number of sets of cities whose tree weight is memoised
+     */
+    public int getMemoSize() {
+        return memo.size();
+    }
+}
@@ -1,34 +1,44 @@
 package deliberative;
 
-import logist.task.Task;
-import logist.task.TaskSet;
 import logist.topology.Topology.City;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
-import java.util.Objects;
 
 public class Node {
+    /**
+     * action leading from the parent to a node
+     */
+    enum Action {MOVE, PICKUP, DELIVERY}
+
+    private final Problem problem;
     private Node parent;
     private double gCost;
-    private final double maxCapacity;
+    private double hCost; //cached heuristic, set by the search
+    int heapIndex = -1; //position in the OpenList, -1 if not in it
 
-    //state
+    //state: the city, and the status of each task of the problem as two bitsets (see Problem)
     private City city;
-    private TaskSet carriedTasks;
-    private TaskSet remainingTasks; //tasks left that are not currently being carried
+    private final long[] state;
+    private final int weight; //weight of the carried tasks
+    private final int hash;
 
+    private final Action action; //null for the initial node
+    private final int task; //task picked up or delivered, -1 for a move
 
-    public Node(Node parent, City city, TaskSet carriedTasks, TaskSet remainingTasks, double maxCapacity) {
+    Node(Problem problem, Node parent, Action action, int task, City city, long[] state, int weight) {
+        this.problem = problem;
         this.parent = parent;
+        this.action = action;
+        this.task = task;
         this.city = city;
-        this.carriedTasks = carriedTasks;
-        this.remainingTasks = remainingTasks;
+        this.state = state;
+        this.weight = weight;
         if (parent != null) {
             gCost = parent.getGCost() + getTransitionCost(parent, this);
         } else gCost = 0;
 
-        this.maxCapacity = maxCapacity;
+        this.hash = 31 * city.id + Arrays.hashCode(state);
     }
 
     public City getCity() {
@@ -39,81 +49,186 @@ public class Node {
         return parent;
     }
 
+    public Problem getProblem() {
+        return problem;
+    }
+
+    /**
+     * returns the action leading from the parent to this node, null for the initial node
+     */
+    public Action getAction() {
+        return action;
+    }
+
+    /**
+     * returns the index in the problem of the task picked up or delivered by the action, -1 for a move
+     */
+    public int getTask() {
+        return task;
+    }
+
+    /**
+     * returns the encoded task statuses of this node, must not be modified
+     */
+    long[] getState() {
+        return state;
+    }
+
     public LinkedList<Node> generateChildren() {
         LinkedList<Node> children = new LinkedList<>();
+        int words = problem.words;
 
-        for (Task task : remainingTasks) {
-            if (task.pickupCity.equals(this.getCity())) {
-                if (getCurrentWeight() + task.weight <= maxCapacity) {
-                    //delivery action
-                    TaskSet remainingTasks = TaskSet.copyOf(this.remainingTasks);
-                    remainingTasks.remove(task);
-                    TaskSet carriedTasks = TaskSet.copyOf(this.carriedTasks);
-                    carriedTasks.add(task);
+        for (int i = nextRemainingTask(0); i >= 0; i = nextRemainingTask(i + 1)) {
+            if (problem.pickupCity[i].id == city.id) {
+                if (weight + problem.weight[i] <= problem.maxCapacity) {
+                    //pickup action
+                    long[] state = this.state.clone();
+                    state[i >>> 6] &= ~(1L << i);
+                    state[words + (i >>> 6)] |= 1L << i;
 
-                    Node child = new Node(this, this.city, carriedTasks, remainingTasks, maxCapacity);
+                    Node child = new Node(problem, this, Action.PICKUP, i, this.city, state, weight + problem.weight[i]);
                     children.add(child);
                 }
             }
         }
 
-        for (Task task : carriedTasks) {
-            if (task.deliveryCity.equals(this.getCity())) {
-                //pickup action
-                TaskSet remainingTasks = TaskSet.copyOf(this.remainingTasks);
-                TaskSet carriedTasks = TaskSet.copyOf(this.carriedTasks);
-                carriedTasks.remove(task);
+        for (int i = nextCarriedTask(0); i >= 0; i = nextCarriedTask(i + 1)) {
+            if (problem.deliveryCity[i].id == city.id) {
+                //delivery action
+                long[] state = this.state.clone();
+                state[words + (i >>> 6)] &= ~(1L << i);
 
-                Node child = new Node(this, this.city, carriedTasks, remainingTasks, maxCapacity);
+                Node child = new Node(problem, this, Action.DELIVERY, i, this.city, state, weight - problem.weight[i]);
                 children.add(child);
             }
         }
 
-        for (City neighbor : city.neighbors()) {
-            //move action
-            Node child = new Node(this, neighbor, this.getCarriedTasks(), this.getRemainingTasks(), maxCapacity);
-            children.add(child);
+        if (problem.macroMoves) {
+            long[] targets = getTargetCities();
+            for (int w = 0; w < targets.length; w++) {
+                for (long bits = targets[w]; bits != 0; bits &= bits - 1) {
+                    //move along the shortest path, the tasks do not change so the state can be shared
+                    City target = problem.index.getCity((w << 6) + Long.numberOfTrailingZeros(bits));
+                    Node child = new Node(problem, this, Action.MOVE, -1, target, this.state, weight);
+                    children.add(child);
+                }
+            }
+        } else {
+            for (City neighbor : city.neighbors()) {
+                //move action, the tasks do not change so the state can be shared
+                Node child = new Node(problem, this, Action.MOVE, -1, neighbor, this.state, weight);
+                children.add(child);
+            }
         }
 
         return children;
     }
 
+    /**
+     * returns the set of the ids of the cities other than the current one
+     * where a task could be picked up or delivered next
+     */
+    private long[] getTargetCities() {
+        long[] targets = new long[(problem.index.size() + 63) >>> 6];
+        for (int i = nextRemainingTask(0); i >= 0; i = nextRemainingTask(i + 1)) {
+            if (weight + problem.weight[i] <= problem.maxCapacity) {
+                int id = problem.pickupCity[i].id;
+                targets[id >>> 6] |= 1L << id;
+            }
+        }
+        for (int i = nextCarriedTask(0); i >= 0; i = nextCarriedTask(i + 1)) {
+            int id = problem.deliveryCity[i].id;
+            targets[id >>> 6] |= 1L << id;
+        }
+        targets[city.id >>> 6] &= ~(1L << city.id);
+        return targets;
+    }
+
     public double getGCost() {
         return gCost;
     }
 
+    public double getHCost() {
+        return hCost;
+    }
+
+    public void setHCost(double hCost) {
+        this.hCost = hCost;
+    }
+
     static public double getTransitionCost(Node startNode, Node endNode) {
-        return startNode.city.distanceTo(endNode.city);
+        return startNode.problem.index.distance(startNode.city, endNode.city);
     }
 
-    public TaskSet getRemainingTasks() {
-        return remainingTasks;
+    /**
+     * returns the index of the first task not yet picked up at or after from, or -1 if there is none
+     */
+    public int nextRemainingTask(int from) {
+        return nextSetBit(0, from);
     }
 
-    public boolean isFinalState() {
-        return remainingTasks.isEmpty() && carriedTasks.isEmpty();
+    /**
+     * returns the index of the first carried task at or after from, or -1 if there is none
+     */
+    public int nextCarriedTask(int from) {
+        return nextSetBit(problem.words, from);
+    }
+
+    private int nextSetBit(int offset, int from) {
+        int word = from >>> 6;
+        if (word >= problem.words) return -1;
+        long bits = state[offset + word] & (-1L << from);
+        while (true) {
+            if (bits != 0) return (word << 6) + Long.numberOfTrailingZeros(bits);
+            if (++word == problem.words) return -1;
+            bits = state[offset + word];
+        }
     }
 
-    public TaskSet getCarriedTasks() {
-        return carriedTasks;
+    public boolean isRemaining(int task) {
+        return (state[task >>> 6] & (1L << task)) != 0;
     }
 
-    public double getCurrentWeight() {
-        double sum = 0;
-        for (Task task : carriedTasks) {
-            sum += task.weight;
+    public boolean isCarried(int task) {
+        return (state[problem.words + (task >>> 6)] & (1L << task)) != 0;
+    }
+
+    public boolean hasRemainingTasks() {
+        for (int w = 0; w < problem.words; w++) {
+            if (state[w] != 0) return true;
         }
-        return sum;
+        return false;
+    }
+
+    public boolean hasCarriedTasks() {
+        for (int w = problem.words; w < state.length; w++) {
+            if (state[w] != 0) return true;
+        }
+        return false;
+    }
+
+    public boolean isFinalState() {
+        for (long bits : state) {
+            if (bits != 0) return false;
+        }
+        return true;
+    }
+
+    public double getCurrentWeight() {
+        return weight;
     }
 
     @Override
     public String toString() {
+        StringBuilder carried = new StringBuilder(), remaining = new StringBuilder();
+        for (int i = nextCarriedTask(0); i >= 0; i = nextCarriedTask(i + 1)) carried.append(' ').append(i);
+        for (int i = nextRemainingTask(0); i >= 0; i = nextRemainingTask(i + 1)) remaining.append(' ').append(i);
         return "Node{" +
                 "city=" + city +
                 ", parent=" + ((parent == null) ? "" : parent.getCity()) +
                 ", gCost=" + gCost +
-                ", carriedTasks=" + carriedTasks +
-                ", remainingTasks=" + remainingTasks +
+                ", carriedTasks=[" + carried.toString().trim() + "]" +
+                ", remainingTasks=[" + remaining.toString().trim() + "]" +
                 '}';
     }
 
@@ -122,13 +237,11 @@ public class Node {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Node node = (Node) o;
-        return getCity().equals(node.getCity()) &&
-                getCarriedTasks().equals(node.getCarriedTasks()) &&
-                getRemainingTasks().equals(node.getRemainingTasks());
+        return hash == node.hash && city.id == node.city.id && Arrays.equals(state, node.state);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getCity(), getCarriedTasks(), getRemainingTasks());
+        return hash;
     }
 }
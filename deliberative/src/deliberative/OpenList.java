@@ -0,0 +1,124 @@
+package deliberative;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Open list of A*: binary min-heap of nodes on their f-value, holding at most one node per state.
+ * The f-value of a node is stored once in the heap, and each node knows its position in the heap,
+ * so that a better path to a state already in the list replaces it in place (decrease-key).
+ */
+public class OpenList {
+    private Node[] heap = new Node[64];
+    private double[] f = new double[64];
+    private int size;
+    private int maxSize;
+
+    //node of each state in the heap
+    private final HashMap<Node, Node> index = new HashMap<>();
+
+    /**
+     * adds n with the given f-value, or replaces the node of the same state if n has a lower f-value
+     * returns false if the list already contains the state of n with a lower or equal f-value
+     */
+    public boolean add(Node n, double fCost) {
+        Node current = index.get(n);
+        if (current != null) {
+            int i = current.heapIndex;
+            if (fCost >= f[i]) return false;
+            //decrease-key
+            current.heapIndex = -1;
+            index.put(n, n);
+            set(i, n, fCost);
+            siftUp(i);
+            return true;
+        }
+
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, 2 * size);
+            f = Arrays.copyOf(f, 2 * size);
+        }
+        index.put(n, n);
+        set(size, n, fCost);
+        siftUp(size++);
+        maxSize = Math.max(maxSize, size);
+        return true;
+    }
+
+    /**
+     * removes and returns the node with the lowest f-value
+     */
+    public Node poll() {
+        Node first = heap[0];
+        index.remove(first);
+        first.heapIndex = -1;
+        size--;
+        if (size > 0) {
+            set(0, heap[size], f[size]);
+            siftDown(0);
+        }
+        heap[size] = null;
+        return first;
+    }
+
+    /**
+     * returns the f-value of the node returned by the next poll()
+     */
+    public double peekCost() {
+        return f[0];
+    }
+
+    private void set(int i, Node n, double fCost) {
+        heap[i] = n;
+        f[i] = fCost;
+        n.heapIndex = i;
+    }
+
+    private void siftUp(int i) {
+        Node n = heap[i];
+        double fCost = f[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (f[parent] <= fCost) break;
+            set(i, heap[parent], f[parent]);
+            i = parent;
+        }
+        set(i, n, fCost);
+    }
+
+    private void siftDown(int i) {
+        Node n = heap[i];
+        double fCost = f[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && f[child + 1] < f[child]) child++;
+            if (fCost <= f[child]) break;
+            set(i, heap[child], f[child]);
+            i = child;
+        }
+        set(i, n, fCost);
+    }
+
+    /**
+     * returns the node at position i of the heap, in no particular order, for 0 <= i < size()
+     */
+    public Node get(int i) {
+        return heap[i];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * returns the largest size the list had
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
@@ -0,0 +1,85 @@
+package deliberative;
+
+import logist.task.Task;
+import logist.task.TaskSet;
+import logist.topology.Topology.City;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The tasks of one planning problem, indexed 0..n-1 so that the state of a Node can be encoded as bitsets.
+ * A Node stores the remaining tasks in words 0..words-1 and the carried tasks in words words..2*words-1.
+ */
+public class Problem {
+    final TopologyIndex index;
+    final Task[] tasks;
+    final City[] pickupCity;
+    final City[] deliveryCity;
+    final int[] weight;
+    final double[] pathLength;
+    final double maxCapacity;
+    final int words;
+    final boolean macroMoves; //moves jump to the cities where a task can be picked up or delivered
+
+    public Problem(TopologyIndex index, TaskSet carriedTasks, TaskSet remainingTasks, double maxCapacity,
+                   boolean macroMoves) {
+        this.index = index;
+        this.macroMoves = macroMoves;
+        ArrayList<Task> list = new ArrayList<>(carriedTasks);
+        list.addAll(remainingTasks);
+        //same order as the iteration over a TaskSet
+        list.sort(Comparator.comparingInt(task -> task.id));
+
+        tasks = list.toArray(new Task[0]);
+        pickupCity = new City[tasks.length];
+        deliveryCity = new City[tasks.length];
+        weight = new int[tasks.length];
+        pathLength = new double[tasks.length];
+        for (int i = 0; i < tasks.length; i++) {
+            pickupCity[i] = tasks[i].pickupCity;
+            deliveryCity[i] = tasks[i].deliveryCity;
+            weight[i] = tasks[i].weight;
+            pathLength[i] = tasks[i].pathLength();
+        }
+        this.maxCapacity = maxCapacity;
+        words = Math.max(1, (tasks.length + 63) / 64);
+    }
+
+    public int size() {
+        return tasks.length;
+    }
+
+    public Task getTask(int index) {
+        return tasks[index];
+    }
+
+    /**
+     * returns true if all the given tasks are tasks of this problem
+     */
+    public boolean contains(TaskSet taskSet) {
+        for (Task task : taskSet) {
+            //the tasks are sorted by id
+            if (Arrays.binarySearch(tasks, task, Comparator.comparingInt(t -> t.id)) < 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * returns the initial node, at the given city with the given tasks
+     */
+    public Node createInitialNode(City city, TaskSet carriedTasks, TaskSet remainingTasks) {
+        long[] state = new long[2 * words];
+        int weight = 0;
+        for (int i = 0; i < tasks.length; i++) {
+            if (carriedTasks.contains(tasks[i])) {
+                state[words + (i >>> 6)] |= 1L << i;
+                weight += this.weight[i];
+            } else if (remainingTasks.contains(tasks[i])) {
+                state[i >>> 6] |= 1L << i;
+            }
+        }
+        return new Node(this, null, null, -1, city, state, weight);
+    }
+}
@@ -0,0 +1,208 @@
+package deliberative;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.TreeSet;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Simplified memory-bounded A* (SMA*): a tree search keeping at most a given number of nodes in memory.
+ * Successors are generated one at a time. When the memory is full, the leaf with the highest f-value
+ * (the shallowest one in case of a tie) is forgotten, and its parent remembers its f-value so that it
+ * can be generated again if it becomes the most promising. The f-values are backed up from the children,
+ * so that they are as high as everything known below them.
+ *
+ * The plan is optimal if the optimal path fits in the node budget, otherwise search() returns null.
+ */
+public class SmaStar {
+    private final ToDoubleFunction<Node> h;
+    private final int maxNodes;
+
+    private final TreeSet<Entry> queue;
+    private final TreeSet<Entry> leaves; //entries of the queue without children in memory, except the root
+    private int nodes;
+    private int maxNodesUsed;
+    private long generated;
+    private long sequence;
+
+    public SmaStar(ToDoubleFunction<Node> h, int maxNodes) {
+        this.h = h;
+        this.maxNodes = Math.max(2, maxNodes);
+        //lowest f first, deepest first among ties
+        Comparator<Entry> order = Comparator.<Entry>comparingDouble(e -> e.f)
+                .thenComparingInt(e -> -e.depth)
+                .thenComparingLong(e -> e.id);
+        queue = new TreeSet<>(order);
+        leaves = new TreeSet<>(order);
+    }
+
+    /**
+     * search tree node, wrapping a search Node
+     */
+    private class Entry {
+        final Node node;
+        final Entry parent;
+        final int index; //position in the successors of the parent
+        final int depth;
+        final long id = sequence++;
+        double f;
+
+        Node[] successors; //generated on first expansion
+        Entry[] children; //successors in memory, null for the others
+        double[] childF; //f-value of each successor, NaN if never generated
+        int inMemory;
+
+        Entry(Node node, Entry parent, int index, int depth, double f) {
+            this.node = node;
+            this.parent = parent;
+            this.index = index;
+            this.depth = depth;
+            this.f = f;
+        }
+
+        boolean allGenerated() {
+            for (double childF : this.childF) {
+                if (Double.isNaN(childF)) return false;
+            }
+            return true;
+        }
+
+        /**
+         * returns the index of the next successor to generate: the first never generated one,
+         * otherwise the forgotten one with the lowest f-value
+         */
+        int nextSuccessor() {
+            int best = -1;
+            for (int i = 0; i < successors.length; i++) {
+                if (children[i] != null) continue;
+                if (Double.isNaN(childF[i])) return i;
+                if (best < 0 || childF[i] < childF[best]) best = i;
+            }
+            return best;
+        }
+    }
+
+    /**
+     * returns the final node of the optimal plan starting from the given node,
+     * or null if it cannot be found within the node budget
+     */
+    public Node search(Node initialNode) {
+        initialNode.setHCost(h.applyAsDouble(initialNode));
+        Entry root = new Entry(initialNode, null, -1, 0, initialNode.getHCost());
+        enqueue(root);
+        nodes = maxNodesUsed = 1;
+
+        while (!queue.isEmpty()) {
+            Entry n = queue.first();
+            if (n.f == Double.POSITIVE_INFINITY) return null;
+            if (n.node.isFinalState()) return n.node;
+
+            if (n.successors == null) {
+                n.successors = n.node.generateChildren().toArray(new Node[0]);
+                n.children = new Entry[n.successors.length];
+                n.childF = new double[n.successors.length];
+                Arrays.fill(n.childF, Double.NaN);
+                if (n.successors.length == 0) {
+                    //dead end
+                    setF(n, Double.POSITIVE_INFINITY);
+                    backup(n.parent);
+                    continue;
+                }
+            }
+
+            int i = n.nextSuccessor();
+            Node s = n.successors[i];
+            generated++;
+            double f;
+            if (!s.isFinalState() && n.depth + 1 >= maxNodes - 1) {
+                //the path cannot be extended further within the budget
+                f = Double.POSITIVE_INFINITY;
+            } else {
+                s.setHCost(h.applyAsDouble(s));
+                f = Math.max(n.f, s.getGCost() + s.getHCost());
+            }
+            Entry child = new Entry(s, n, i, n.depth + 1, f);
+            n.children[i] = child;
+            n.childF[i] = f;
+            leaves.remove(n);
+            n.inMemory++;
+            nodes++;
+
+            if (n.allGenerated()) backup(n);
+            if (n.inMemory == n.successors.length) dequeue(n);
+
+            if (nodes > maxNodes) forgetWorstLeaf();
+            enqueue(child);
+            maxNodesUsed = Math.max(maxNodesUsed, nodes);
+        }
+        return null;
+    }
+
+    /**
+     * sets the f-value of n to the lowest f-value of its successors, and propagates the change to its ancestors
+     */
+    private void backup(Entry n) {
+        while (n != null && n.successors != null && n.allGenerated()) {
+            double min = Double.POSITIVE_INFINITY;
+            for (double childF : n.childF) min = Math.min(min, childF);
+            if (min == n.f) return;
+            setF(n, min);
+            n = n.parent;
+        }
+    }
+
+    private void setF(Entry n, double f) {
+        boolean queued = dequeue(n);
+        n.f = f;
+        if (queued) enqueue(n);
+        if (n.parent != null) n.parent.childF[n.index] = f;
+    }
+
+    /**
+     * adds an entry to the queue, and to the leaves if it has no children in memory
+     */
+    private void enqueue(Entry e) {
+        queue.add(e);
+        if (e.inMemory == 0 && e.parent != null) leaves.add(e);
+    }
+
+    /**
+     * removes an entry from the queue and from the leaves, and returns whether it was in the queue
+     */
+    private boolean dequeue(Entry e) {
+        leaves.remove(e);
+        return queue.remove(e);
+    }
+
+    /**
+     * removes from memory the leaf with the highest f-value, the shallowest one in case of a tie
+     */
+    private void forgetWorstLeaf() {
+        //the leaves are sorted like the queue, by increasing f-value and decreasing depth
+        if (leaves.isEmpty()) return;
+        Entry worst = leaves.last();
+
+        dequeue(worst);
+        Entry parent = worst.parent;
+        parent.children[worst.index] = null;
+        parent.childF[worst.index] = worst.f;
+        parent.inMemory--;
+        nodes--;
+        if (!queue.contains(parent)) enqueue(parent);
+        else if (parent.inMemory == 0 && parent.parent != null) leaves.add(parent);
+    }
+
+    /**
+     * returns the number of generated nodes, including the ones generated again after being forgotten
+     */
+    public long getGenerated() {
+        return generated;
+    }
+
+    /**
+     * returns the highest number of nodes that were in memory at the same time
+     */
+    public int getMaxNodesUsed() {
+        return maxNodesUsed;
+    }
+}
@@ -0,0 +1,95 @@
+package deliberative;
+
+import logist.plan.Plan;
+import logist.topology.Topology;
+import logist.topology.Topology.City;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Dense tables of a topology, computed once per Topology and shared by the planners:
+ * the shortest-path distance between all pairs of cities, and the next city on the shortest path.
+ * Cities are indexed by their id (0..size-1), the tables are row-major: [from * size + to].
+ */
+public class TopologyIndex {
+    private static final Map<Topology, TopologyIndex> INDEXES = new WeakHashMap<>();
+
+    private final int size;
+    private final City[] cities;
+    private final double[] distance;
+    private final long[] distanceUnits;
+    private final int[] nextHop;
+
+    private TopologyIndex(Topology topology) {
+        size = topology.size();
+        cities = new City[size];
+        for (City city : topology) {
+            cities[city.id] = city;
+        }
+
+        distance = new double[size * size];
+        distanceUnits = new long[size * size];
+        nextHop = new int[size * size];
+        for (City from : cities) {
+            for (City to : cities) {
+                int k = from.id * size + to.id;
+                distance[k] = from.distanceTo(to);
+                distanceUnits[k] = from.distanceUnitsTo(to);
+                nextHop[k] = (from == to) ? to.id : from.pathTo(to).get(0).id;
+            }
+        }
+    }
+
+    /**
+     * returns the index of the given topology, computing it on first use
+     */
+    public static TopologyIndex of(Topology topology) {
+        synchronized (INDEXES) {
+            return INDEXES.computeIfAbsent(topology, TopologyIndex::new);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public City getCity(int id) {
+        return cities[id];
+    }
+
+    /**
+     * returns the length of the shortest path between two cities, in km (same as City.distanceTo)
+     */
+    public double distance(City from, City to) {
+        return distance[from.id * size + to.id];
+    }
+
+    public double distance(int from, int to) {
+        return distance[from * size + to];
+    }
+
+    /**
+     * returns the length of the shortest path between two cities, in distance units (same as City.distanceUnitsTo)
+     */
+    public long distanceUnits(City from, City to) {
+        return distanceUnits[from.id * size + to.id];
+    }
+
+    /**
+     * returns the id of the city after from on the shortest path to to (to itself if from == to)
+     */
+    public int nextHop(int from, int to) {
+        return nextHop[from * size + to];
+    }
+
+    /**
+     * appends the moves of the shortest path from a city to another to the plan (same as City.pathTo)
+     */
+    public void appendPath(Plan plan, City from, City to) {
+        for (int city = from.id; city != to.id; ) {
+            city = nextHop[city * size + to.id];
+            plan.appendMove(cities[city]);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package rla;
+
+import logist.behavior.ReactiveBehavior;
+import logist.plan.Action;
+import logist.plan.ActionHandler;
+import logist.task.DefaultTaskDistribution;
+import logist.task.Task;
+import logist.topology.Topology;
+import logist.topology.Topology.City;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless simulation of the reactive agents, for many topologies, discount factors and seeds in parallel.
+ * The policy of ReactiveRLA is computed once per (topology, discount factor) and shared by all the seeds.
+ *
+ * The profit of every step is streamed to a binary file with one column per run:
+ * a header (int magic, int version, int steps) followed by, for each run in completion order,
+ * its index (int) and its step profits (float[steps]). The runs are described in [output].runs.csv.
+ *
+ * Run from the reactive directory, with the sources of src/ and bench/ compiled to bin/:
+ * java -cp "bin:lib/*:lib/logist/*" rla.BatchRunner output.bin [steps] [seeds] [threads]
+ */
+public class BatchRunner {
+    private static final int MAGIC = 0x52424154; //"RBAT"
+    private static final int VERSION = 1;
+    private static final String[] AGENTS = {"rla.ReactiveRLA", "rla.ReactiveRandom", "rla.ReactiveDummy"};
+    private static final double[] DISCOUNTS = {0.5, 0.85, 0.95, 0.99};
+    private static final long DISTRIBUTION_SEED = 3590420242192152424L;
+    private static final int CAPACITY = 30;
+    private static final int COST_PER_KM = 5;
+
+    private final int steps;
+    private final DataOutputStream out;
+    private final PrintWriter runs;
+
+    public BatchRunner(String output, int steps) throws IOException {
+        this.steps = steps;
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output), 1 << 16));
+        this.runs = new PrintWriter(output + ".runs.csv", "UTF-8");
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(steps);
+        runs.println("run,agent,topology,discount,seed,total_profit");
+    }
+
+    public static void main(String[] args) throws Exception {
+        String output = (args.length > 0) ? args[0] : "batch.bin";
+        int steps = (args.length > 1) ? Integer.parseInt(args[1]) : 10000;
+        int seeds = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+        int threads = (args.length > 3) ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        BatchRunner runner = new BatchRunner(output, steps);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> results = new ArrayList<>();
+        int run = 0;
+        try {
+            for (String topologyName : Scenarios.TOPOLOGIES) {
+                Topology topology = Scenarios.loadTopology(topologyName);
+                for (double discount : DISCOUNTS) {
+                    //the policy of this configuration, computed by the first run that needs it
+                    Future<ReactiveRLA> policy = executor.submit(() -> {
+                        ReactiveRLA rla = new ReactiveRLA();
+                        rla.setup(topology, Scenarios.taskDistribution(topology, DISTRIBUTION_SEED),
+                                runner.createAgent("rla.ReactiveRLA", topology, discount));
+                        return rla;
+                    });
+                    for (String agentName : AGENTS) {
+                        for (int seed = 0; seed < seeds; seed++) {
+                            int runIndex = run++;
+                            long runSeed = seed;
+                            results.add(executor.submit(() -> {
+                                runner.run(runIndex, agentName, topologyName, topology, discount, runSeed, policy);
+                                return null;
+                            }));
+                        }
+                    }
+                }
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+            runner.close();
+        }
+        System.out.println("Wrote " + run + " runs of " + steps + " steps to " + output);
+    }
+
+    private HeadlessAgent createAgent(String agentName, Topology topology, double discount) {
+        return new HeadlessAgent(agentName, topology.cities().get(0), CAPACITY, COST_PER_KM)
+                .setProperty("discount-factor", discount);
+    }
+
+    /**
+     * simulates one agent for the configured number of steps and writes its profits
+     */
+    private void run(int runIndex, String agentName, String topologyName, Topology topology, double discount,
+                     long seed, Future<ReactiveRLA> policy) throws Exception {
+        HeadlessAgent agent = createAgent(agentName, topology, discount);
+        ReactiveBehavior behavior;
+        if (agentName.equals("rla.ReactiveRLA")) {
+            behavior = policy.get().copyFor(agent);
+        } else {
+            behavior = (ReactiveBehavior) Class.forName(agentName).getDeclaredConstructor().newInstance();
+            behavior.setup(topology, Scenarios.taskDistribution(topology, DISTRIBUTION_SEED), agent);
+        }
+
+        //same distribution for every run, but the tasks are drawn from the seed of the run
+        DefaultTaskDistribution td = Scenarios.taskDistribution(topology, DISTRIBUTION_SEED, new Random(seed));
+        HeadlessAgent.HeadlessVehicle vehicle = agent.getVehicle();
+        Step step = new Step(vehicle);
+        float[] profits = new float[steps];
+        double total = 0;
+        for (int i = 0; i < steps; i++) {
+            Task task = td.createTask(vehicle.getCurrentCity());
+            Action action = behavior.act(vehicle, task);
+            profits[i] = (float) (double) action.accept(step);
+            total += profits[i];
+        }
+        write(runIndex, profits, String.format(Locale.ROOT, "%d,%s,%s,%s,%d,%.2f",
+                runIndex, agentName, topologyName, discount, seed, total));
+    }
+
+    private synchronized void write(int runIndex, float[] profits, String description) throws IOException {
+        out.writeInt(runIndex);
+        for (float profit : profits) {
+            out.writeFloat(profit);
+        }
+        runs.println(description);
+    }
+
+    private synchronized void close() throws IOException {
+        out.close();
+        runs.close();
+    }
+
+    /**
+     * applies an action to the vehicle and returns the profit it made, like the logist platform does
+     */
+    private static class Step implements ActionHandler<Double> {
+        private final HeadlessAgent.HeadlessVehicle vehicle;
+
+        Step(HeadlessAgent.HeadlessVehicle vehicle) {
+            this.vehicle = vehicle;
+        }
+
+        @Override
+        public Double moveTo(City target) {
+            double cost = vehicle.getCurrentCity().distanceTo(target) * vehicle.costPerKm();
+            vehicle.moveTo(target, 0, false);
+            return -cost;
+        }
+
+        @Override
+        public Double pickup(Task task) {
+            //a reactive pickup is immediately followed by the delivery
+            return deliver(task);
+        }
+
+        @Override
+        public Double deliver(Task task) {
+            double cost = vehicle.getCurrentCity().distanceTo(task.deliveryCity) * vehicle.costPerKm();
+            vehicle.moveTo(task.deliveryCity, task.reward, true);
+            return task.reward - cost;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package rla;
+
+import logist.Measures;
+import logist.agent.Agent;
+import logist.agent.AgentStatistics;
+import logist.simulation.Vehicle;
+import logist.task.TaskSet;
+import logist.topology.Topology.City;
+
+import java.awt.Color;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal Agent with a single vehicle, to run the reactive behaviors outside of the logist platform.
+ * Properties are given as strings, like in agents.xml.
+ */
+public class HeadlessAgent implements Agent {
+    private final String name;
+    private final HeadlessVehicle vehicle;
+    private final Map<String, String> properties = new HashMap<>();
+
+    public HeadlessAgent(String name, City homeCity, int capacity, int costPerKm) {
+        this.name = name;
+        this.vehicle = new HeadlessVehicle(homeCity, capacity, costPerKm);
+    }
+
+    public HeadlessAgent setProperty(String key, Object value) {
+        properties.put(key, String.valueOf(value));
+        return this;
+    }
+
+    public HeadlessVehicle getVehicle() {
+        return vehicle;
+    }
+
+    @Override
+    public int id() {
+        return 0;
+    }
+
+    @Override
+    public List<Vehicle> vehicles() {
+        return Collections.singletonList(vehicle);
+    }
+
+    @Override
+    public TaskSet getTasks() {
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T readProperty(String paramName, Class<T> clazz, T default_) {
+        String value = properties.get(paramName);
+        if (value == null) {
+            if (default_ == null) throw new RuntimeException("Missing property " + paramName);
+            return default_;
+        }
+        if (clazz == String.class) return (T) value;
+        if (clazz == Double.class) return (T) Double.valueOf(value);
+        if (clazz == Integer.class) return (T) Integer.valueOf(value);
+        if (clazz == Long.class) return (T) Long.valueOf(value);
+        if (clazz == Boolean.class) return (T) Boolean.valueOf(value);
+        throw new RuntimeException("Unsupported property type " + clazz);
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public long getTotalDistanceUnits() {
+        return vehicle.getDistanceUnits();
+    }
+
+    @Override
+    public double getTotalDistance() {
+        return vehicle.getDistance();
+    }
+
+    @Override
+    public long getTotalCost() {
+        return (long) (vehicle.getDistance() * vehicle.costPerKm());
+    }
+
+    @Override
+    public long getTotalReward() {
+        return vehicle.getReward();
+    }
+
+    @Override
+    public long getTotalProfit() {
+        return getTotalReward() - getTotalCost();
+    }
+
+    @Override
+    public int getTotalTasks() {
+        return vehicle.tasks;
+    }
+
+    @Override
+    public int compareTo(AgentStatistics o) {
+        return Long.compare(o.getTotalProfit(), getTotalProfit());
+    }
+
+    /**
+     * Vehicle whose position and statistics are updated by the caller
+     */
+    public static class HeadlessVehicle implements Vehicle {
+        private final City homeCity;
+        private final int capacity;
+        private final int costPerKm;
+        private City currentCity;
+        private long reward;
+        private long distanceUnits;
+        private int tasks;
+
+        HeadlessVehicle(City homeCity, int capacity, int costPerKm) {
+            this.homeCity = homeCity;
+            this.capacity = capacity;
+            this.costPerKm = costPerKm;
+            this.currentCity = homeCity;
+        }
+
+        /**
+         * moves the vehicle to the given city along the shortest path, collecting the given reward
+         */
+        public void moveTo(City city, long reward, boolean delivery) {
+            distanceUnits += currentCity.distanceUnitsTo(city);
+            this.reward += reward;
+            if (delivery) tasks++;
+            currentCity = city;
+        }
+
+        @Override
+        public int id() {
+            return 0;
+        }
+
+        @Override
+        public String name() {
+            return "headless";
+        }
+
+        @Override
+        public int capacity() {
+            return capacity;
+        }
+
+        @Override
+        public City homeCity() {
+            return homeCity;
+        }
+
+        @Override
+        public double speed() {
+            return 0;
+        }
+
+        @Override
+        public int costPerKm() {
+            return costPerKm;
+        }
+
+        @Override
+        public City getCurrentCity() {
+            return currentCity;
+        }
+
+        @Override
+        public TaskSet getCurrentTasks() {
+            return null;
+        }
+
+        @Override
+        public long getReward() {
+            return reward;
+        }
+
+        @Override
+        public long getDistanceUnits() {
+            return distanceUnits;
+        }
+
+        @Override
+        public double getDistance() {
+            return Measures.unitsToKM(distanceUnits);
+        }
+
+        @Override
+        public Color color() {
+            return null;
+        }
+    }
+}
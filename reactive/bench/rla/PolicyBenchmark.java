@@ -0,0 +1,131 @@
+package rla;
+
+import logist.task.TaskDistribution;
+import logist.topology.Topology;
+import rla.PolicyGenerator.MyAction;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Benchmarks of the reactive policy generation on the shipped topologies and on synthetic ones:
+ * state generation, evaluation of T() and R(), and generatePolicy() for several discount factors.
+ * Reports the throughput (operations per second) and the bytes allocated per operation.
+ *
+ * Run from the reactive directory, with the sources of src/ and bench/ compiled to bin/:
+ * java -cp "bin:lib/*:lib/logist/*" rla.PolicyBenchmark [seconds per benchmark]
+ */
+public class PolicyBenchmark {
+    private static final double[] DISCOUNTS = {0.5, 0.85, 0.95, 0.99};
+    private static final int[] SYNTHETIC_SIZES = {25, 50, 100};
+
+    //results are accumulated here so that the JIT cannot remove the benchmarked code
+    private static volatile double sink;
+
+    private final double seconds;
+
+    public PolicyBenchmark(double seconds) {
+        this.seconds = seconds;
+    }
+
+    public static void main(String[] args) throws Exception {
+        double seconds = (args.length > 0) ? Double.parseDouble(args[0]) : 2.0;
+        PolicyBenchmark benchmark = new PolicyBenchmark(seconds);
+
+        Map<String, Topology> topologies = new LinkedHashMap<>();
+        for (String name : Scenarios.TOPOLOGIES) {
+            topologies.put(name, Scenarios.loadTopology(name));
+        }
+        for (int size : SYNTHETIC_SIZES) {
+            topologies.put("synthetic-" + size, Scenarios.syntheticTopology(size, 3, size));
+        }
+
+        System.out.println("benchmark,topology,states,ops_per_s,bytes_per_op");
+        for (Map.Entry<String, Topology> entry : topologies.entrySet()) {
+            benchmark.run(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void run(String name, Topology topology) {
+        TaskDistribution td = Scenarios.taskDistribution(topology, 42);
+        HeadlessAgent agent = new HeadlessAgent("benchmark", topology.cities().get(0), 30, 5);
+        PolicyGenerator generator = new PolicyGenerator(topology, td, agent);
+        ArrayList<State> states = generator.generateAllPossibleState();
+        SparseModel model = generator.getModel();
+        int[] rowState = new int[model.rowAction.length];
+        for (int s = 0; s < model.numStates; s++) {
+            for (int row = model.actionStart[s]; row < model.actionStart[s + 1]; row++) rowState[row] = s;
+        }
+
+        measure("generateAllPossibleState", name, states.size(),
+                () -> sink += generator.generateAllPossibleState().size());
+
+        measure("R", name, states.size(), () -> {
+            double sum = 0;
+            for (State s : states) {
+                for (MyAction a : generator.getActionsFromState(s)) {
+                    sum += generator.R(s, a);
+                }
+            }
+            sink += sum;
+        });
+
+        //T() is evaluated on the states of every city reached by an action, like when building the model
+        measure("T", name, states.size(), () -> {
+            double sum = 0;
+            for (int row = 0; row < model.rowAction.length; row++) {
+                State s = model.states[rowState[row]];
+                for (int k = model.transStart[row]; k < model.transStart[row + 1]; k++) {
+                    sum += generator.T(s, model.rowAction[row], model.states[model.transState[k]]);
+                }
+            }
+            sink += sum;
+        });
+
+        for (double discount : DISCOUNTS) {
+            measure("generatePolicy(" + discount + ")", name, states.size(),
+                    () -> sink += new PolicyGenerator(topology, td, agent).generatePolicy(discount).size());
+        }
+    }
+
+    /**
+     * runs the operation for the configured time after a warm-up of the same length,
+     * and prints its throughput and the number of bytes it allocates
+     */
+    private void measure(String benchmark, String topology, int states, Runnable operation) {
+        long budget = (long) (seconds * 1e9);
+        //warm-up
+        long start = System.nanoTime();
+        do {
+            operation.run();
+        } while (System.nanoTime() - start < budget);
+
+        long operations = 0;
+        long allocated = allocatedBytes();
+        start = System.nanoTime();
+        long elapsed;
+        do {
+            operation.run();
+            operations++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < budget);
+        allocated = allocatedBytes() - allocated;
+
+        System.out.println(String.format(Locale.ROOT, "%s,%s,%d,%.3f,%d", benchmark, topology, states,
+                operations / (elapsed / 1e9), allocated / operations));
+    }
+
+    /**
+     * returns the number of bytes allocated by the current thread, or 0 if the JVM cannot measure it
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,91 @@
+package rla;
+
+import logist.config.ParserException;
+import logist.config.Parsers;
+import logist.task.DefaultTaskDistribution;
+import logist.task.Policy;
+import logist.topology.Topology;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Topologies and task distributions used by the benchmarks and the batch runner
+ */
+public class Scenarios {
+    public static final String[] TOPOLOGIES = {"france", "england", "switzerland", "the_netherlands"};
+
+    /**
+     * returns the topology config/topology/[name].xml
+     */
+    public static Topology loadTopology(String name) throws ParserException {
+        return Parsers.parseTopology("config" + File.separator + "topology" + File.separator + name + ".xml");
+    }
+
+    /**
+     * returns a random connected topology: cities on a 1000x1000 grid, each one linked to its closest cities
+     */
+    public static Topology syntheticTopology(int numCities, int degree, long seed) {
+        Random random = new Random(seed);
+        Topology.Builder builder = new Topology.Builder();
+        int[] x = new int[numCities];
+        int[] y = new int[numCities];
+        for (int i = 0; i < numCities; i++) {
+            x[i] = random.nextInt(1000);
+            y[i] = random.nextInt(1000);
+            builder.addCity("C" + i, x[i], y[i]);
+        }
+
+        Set<Long> routes = new HashSet<>();
+        for (int i = 0; i < numCities; i++) {
+            //link to the previous city so that the topology is connected
+            List<Integer> targets = new ArrayList<>();
+            if (i > 0) targets.add(i - 1);
+            for (int k = 0; k < degree; k++) {
+                int closest = -1;
+                for (int j = 0; j < numCities; j++) {
+                    if (j == i || targets.contains(j)) continue;
+                    if (closest < 0 || dist2(x, y, i, j) < dist2(x, y, i, closest)) closest = j;
+                }
+                if (closest >= 0) targets.add(closest);
+            }
+            for (int j : targets) {
+                long key = (long) Math.min(i, j) * numCities + Math.max(i, j);
+                if (!routes.add(key)) continue;
+                double km = Math.sqrt(dist2(x, y, i, j)) + 1;
+                builder.addRoute("C" + i, "C" + j, (long) (km * 1000));
+            }
+        }
+        return builder.build();
+    }
+
+    private static long dist2(int[] x, int[] y, int i, int j) {
+        long dx = x[i] - x[j], dy = y[i] - y[j];
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * returns the task distribution of reactive.xml for the given topology:
+     * uniform probabilities, short-distance rewards, constant weights, 20-40% chance of no task
+     */
+    public static DefaultTaskDistribution taskDistribution(Topology topology, long seed) {
+        return taskDistribution(topology, seed, null);
+    }
+
+    /**
+     * returns the task distribution generated from the given seed, creating its tasks with the given
+     * random generator (or with the one of the seed if null)
+     */
+    public static DefaultTaskDistribution taskDistribution(Topology topology, long seed, Random taskRandom) {
+        Random random = new Random(seed);
+        double[][] p = new Policy.Uniform(topology).uniform(0.0, 1.0, random);
+        double[][] r = new Policy.ShortDistances(topology).constant(1000.0, 99999.0);
+        double[][] w = new Policy.Uniform(topology).constant(3.0, 3.0);
+        double[] n = Policy.uniform(topology.size(), 0.2, 0.4, random);
+        return new DefaultTaskDistribution(topology, (taskRandom == null) ? random : taskRandom, p, r, w, n);
+    }
+}
@@ -0,0 +1,23 @@
+package rla;
+
+/**
+ * Value iteration updating V in place, each backup using the values already updated in the sweep
+ */
+public class GaussSeidelSolver extends Solver {
+
+    @Override
+    protected double[] iterate(SparseModel m, double discount, double[] V) {
+        double error;
+        do {
+            error = 0;
+            for (int s = 0; s < m.numStates; s++) {
+                //find highest Q for all possible actions
+                double maxQ = m.maxQ(s, V, discount);
+                error = Math.max(error, Math.abs(maxQ - V[s]));
+                V[s] = maxQ;
+            }
+            recordSweep(error);
+        } while (error > EPSILON);
+        return V;
+    }
+}
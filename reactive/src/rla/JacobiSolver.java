@@ -0,0 +1,70 @@
+package rla;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Value iteration where every sweep reads V and writes a second buffer,
+ * so that the states can be updated in parallel
+ */
+public class JacobiSolver extends Solver {
+    private final int threads;
+
+    public JacobiSolver(int threads) {
+        this.threads = Math.max(threads, 1);
+    }
+
+    @Override
+    protected double[] iterate(SparseModel m, double discount, double[] V) {
+        double[] nextV = new double[m.numStates];
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        double error;
+        try {
+            do {
+                error = pool.invoke(new Sweep(m, V, nextV, 0, m.numStates, discount));
+                double[] tmp = V;
+                V = nextV;
+                nextV = tmp;
+                recordSweep(error);
+            } while (error > EPSILON);
+        } finally {
+            pool.shutdown();
+        }
+        return V;
+    }
+
+    /**
+     * one parallel Jacobi sweep over a range of states, split in halves until small enough
+     * returns the largest change of V over the range
+     */
+    private static class Sweep extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 256;
+        private final SparseModel m;
+        private final double[] V, nextV;
+        private final int from, to;
+        private final double discount;
+
+        Sweep(SparseModel m, double[] V, double[] nextV, int from, int to, double discount) {
+            this.m = m;
+            this.V = V;
+            this.nextV = nextV;
+            this.from = from;
+            this.to = to;
+            this.discount = discount;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from <= THRESHOLD) {
+                return m.sweep(V, nextV, from, to, discount);
+            }
+            int mid = (from + to) >>> 1;
+            Sweep left = new Sweep(m, V, nextV, from, mid, discount);
+            left.fork();
+            double right = new Sweep(m, V, nextV, mid, to, discount).compute();
+            return Math.max(left.join(), right);
+        }
+    }
+}
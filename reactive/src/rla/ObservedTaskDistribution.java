@@ -0,0 +1,34 @@
+package rla;
+
+import logist.task.TaskDistribution;
+import logist.topology.Topology.City;
+
+/**
+ * Task distribution with the probabilities observed by an agent,
+ * rewards and weights are taken from the original distribution
+ */
+public class ObservedTaskDistribution implements TaskDistribution {
+    private final TaskDistribution original;
+    //probability[from][to], the last column being the probability that there is no task
+    private final double[][] probability;
+
+    public ObservedTaskDistribution(TaskDistribution original, double[][] probability) {
+        this.original = original;
+        this.probability = probability;
+    }
+
+    @Override
+    public double probability(City from, City to) {
+        return (to == null) ? probability[from.id][probability.length] : probability[from.id][to.id];
+    }
+
+    @Override
+    public int reward(City from, City to) {
+        return original.reward(from, to);
+    }
+
+    @Override
+    public int weight(City from, City to) {
+        return original.weight(from, to);
+    }
+}
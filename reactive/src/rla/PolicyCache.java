@@ -0,0 +1,170 @@
+package rla;
+
+import logist.task.TaskDistribution;
+import logist.topology.Topology;
+import logist.topology.Topology.City;
+import rla.PolicyGenerator.MyAction;
+import rla.PolicyGenerator.MyMove;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * On-disk cache of the policies generated by PolicyGenerator.
+ * A policy is stored in a file named after a hash of everything it depends on
+ * (topology, task distribution, cost per km, discount factor and solver), as one action code per state:
+ * -1 for a pickup, otherwise the id of the city to move to, followed by the value V of each state
+ * (so that a policy update can start from it).
+ */
+public class PolicyCache {
+    private static final int MAGIC = 0x524C4150; //"RLAP"
+    private static final int VERSION = 2;
+    private static final int PICKUP = PolicyTable.PICKUP;
+    private static final int HEADER_SIZE = 4 + 4 + 32 + 4;
+
+    private final File directory;
+    private final Topology topology;
+    private final byte[] key;
+    private double[] values; //values of the last loaded policy
+
+    public PolicyCache(File directory, Topology topology, TaskDistribution td, double costPerKm, double discount,
+                       Solver.Type solver) {
+        this.directory = directory;
+        this.topology = topology;
+        this.key = computeKey(topology, td, costPerKm, discount, solver);
+    }
+
+    /**
+     * returns the SHA-256 hash of all the parameters the policy depends on
+     */
+    private static byte[] computeKey(Topology topology, TaskDistribution td, double costPerKm, double discount,
+                                     Solver.Type solver) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(topology.size());
+            for (City city : topology) {
+                out.writeUTF(city.name);
+                out.writeInt(city.xPos);
+                out.writeInt(city.yPos);
+                out.writeInt(city.neighbors().size());
+                for (City neighbor : city.neighbors()) {
+                    out.writeInt(neighbor.id);
+                }
+                out.writeDouble(td.probability(city, null));
+                for (City destination : topology) {
+                    out.writeDouble(city.distanceTo(destination));
+                    out.writeDouble(td.probability(city, destination));
+                    out.writeInt(td.reward(city, destination));
+                }
+            }
+            out.writeDouble(costPerKm);
+            out.writeDouble(discount);
+            out.writeUTF(solver.name());
+            out.flush();
+            return MessageDigest.getInstance("SHA-256").digest(bytes.toByteArray());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("cannot hash the policy parameters", e);
+        }
+    }
+
+    private File getFile() {
+        StringBuilder name = new StringBuilder();
+        for (byte b : key) {
+            name.append(String.format("%02x", b));
+        }
+        return new File(directory, name + ".policy");
+    }
+
+    /**
+     * returns the cached policy for the states of the given generator,
+     * or null if there is none or if it does not match the current parameters
+     * the values of its states are then returned by getValues()
+     */
+    public HashMap<State, MyAction> load(PolicyGenerator generator) {
+        File file = getFile();
+        if (!file.isFile()) return null;
+
+        ArrayList<State> states = generator.generateAllPossibleState();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            if (channel.size() != HEADER_SIZE + 12L * states.size()) return null;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            byte[] fileKey = new byte[key.length];
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+            buffer.get(fileKey);
+            if (!Arrays.equals(fileKey, key) || buffer.getInt() != states.size()) return null;
+
+            //one shared action object per action code
+            HashMap<Integer, MyAction> actions = new HashMap<>();
+            HashMap<State, MyAction> policy = new HashMap<>();
+            for (State s : states) {
+                int code = buffer.getInt();
+                if (code < PICKUP || code >= topology.size()) return null;
+                MyAction action = actions.get(code);
+                if (action == null) {
+                    if (code == PICKUP) action = generator.new MyPickup();
+                    else action = generator.new MyMove(topology.cities().get(code));
+                    actions.put(code, action);
+                }
+                policy.put(s, action);
+            }
+            double[] V = new double[states.size()];
+            buffer.asDoubleBuffer().get(V);
+            values = V;
+            return policy;
+        } catch (IOException e) {
+            System.out.println("There was a problem reading the policy cache: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * returns the values V of the states of the last loaded policy, indexed like generateAllPossibleState()
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    /**
+     * writes the policy for the states of the given generator, and the values of its last generated policy,
+     * to the cache
+     */
+    public void store(PolicyGenerator generator, HashMap<State, MyAction> policy) {
+        ArrayList<State> states = generator.generateAllPossibleState();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 12 * states.size());
+        buffer.putInt(MAGIC).putInt(VERSION).put(key).putInt(states.size());
+        for (State s : states) {
+            MyAction action = policy.get(s);
+            buffer.putInt(action instanceof MyMove ? ((MyMove) action).getDestination().id : PICKUP);
+        }
+        for (double v : generator.getValues()) {
+            buffer.putDouble(v);
+        }
+
+        File file = getFile();
+        try {
+            Files.createDirectories(directory.toPath());
+            //write to a temporary file first, so that concurrent runs never read a partial policy
+            File tmp = File.createTempFile(file.getName(), ".tmp", directory);
+            Files.write(tmp.toPath(), buffer.array());
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("There was a problem writing the policy cache: " + e.getMessage());
+        }
+    }
+}
@@ -15,6 +15,15 @@ public class PolicyGenerator {
     private TaskDistribution td;
     private Agent agent;
     private final ArrayList<State> possibleStates;
+    private SparseModel model;
+    private double[] V;
+
+    //dense tables of the task distribution and topology, indexed by city id (see precompute())
+    final double costPerKm;
+    final double[][] reward;
+    final double[][] probability;
+    final double[] noTaskProb;
+    final double[][] distance;
 
     public abstract class MyAction {
     }
@@ -46,6 +55,31 @@ public class PolicyGenerator {
         this.td = td;
         this.agent = agent;
         possibleStates = generateAllPossibleState();
+
+        int n = topology.size();
+        costPerKm = agent.vehicles().get(0).costPerKm();
+        reward = new double[n][n];
+        probability = new double[n][n];
+        noTaskProb = new double[n];
+        distance = new double[n][n];
+        precompute();
+    }
+
+    /**
+     * fills the tables read by the solvers, once per setup, in place of calls to R() and T()
+     */
+    private void precompute() {
+        for (City city : topology.cities()) {
+            //same operations as T(), so that the values are exactly equal
+            double res = 1;
+            for (City destination : topology.cities()) {
+                reward[city.id][destination.id] = td.reward(city, destination);
+                probability[city.id][destination.id] = td.probability(city, destination);
+                distance[city.id][destination.id] = city.distanceTo(destination);
+                res -= probability[city.id][destination.id];
+            }
+            noTaskProb[city.id] = res;
+        }
     }
 
     /**
@@ -83,7 +117,7 @@ public class PolicyGenerator {
      * Reward table:
      * returns the instantaneous reward for taking given action in given state
      */
-    private double R(State state, MyAction action) {
+    double R(State state, MyAction action) {
         double costPerKm = agent.vehicles().get(0).costPerKm();
         double reward = 0, distance;
         if (action instanceof MyPickup) {
@@ -153,67 +187,90 @@ public class PolicyGenerator {
     }
 
     /**
-     * returns the optimal policy
+     * checks that the model read by the solvers matches R() and T() for every state and action,
+     * throws IllegalStateException otherwise
      */
-    public HashMap<State, MyAction> generatePolicy(double discount) {
-        //init V(s) arbitrarily
-        HashMap<State, Double> V = new HashMap<>();
-        for (State s : possibleStates) {
-            V.put(s, 0.0);
+    public void checkModel() {
+        SparseModel m = getModel();
+        double[] row = new double[m.numStates];
+        for (int s = 0; s < m.numStates; s++) {
+            for (int r = m.actionStart[s]; r < m.actionStart[s + 1]; r++) {
+                MyAction a = m.rowAction[r];
+                if (m.reward[r] != R(m.states[s], a)) {
+                    throw new IllegalStateException("R(" + m.states[s] + ", " + a + ") = " + R(m.states[s], a)
+                            + " but the model has " + m.reward[r]);
+                }
+                Arrays.fill(row, 0);
+                for (int k = m.transStart[r]; k < m.transStart[r + 1]; k++) {
+                    row[m.transState[k]] = m.transProb[k];
+                }
+                for (int j = 0; j < m.numStates; j++) {
+                    double p = T(m.states[s], a, m.states[j]);
+                    if (row[j] != p) {
+                        throw new IllegalStateException("T(" + m.states[s] + ", " + a + ", " + m.states[j] + ") = "
+                                + p + " but the model has " + row[j]);
+                    }
+                }
+            }
         }
+    }
 
-        //optimize V by Value iteration
-        HashMap<State, Double> lastV;
-        double epsilon = 1e-14;
-        do {
-            //copy V
-            lastV = new HashMap<>(V);
-            for (State s : possibleStates) {
-                //find highest Q for all possible actions
-                double maxQ = getActionsFromState(s).stream()
-                        .mapToDouble(a -> Q(s, a, V, discount))
-                        .max()
-                        .orElseThrow(NoSuchElementException::new);
-                V.put(s, maxQ);
-            }
-        } while (getError(V, lastV) > epsilon);
+    /**
+     * returns the values V of the last generated policy, indexed like generateAllPossibleState()
+     */
+    public double[] getValues() {
+        return V;
+    }
 
-        //generate policy from V
-        HashMap<State, MyAction> policy = new HashMap<>();
-        for (State s : possibleStates) {
-            //find action that maximises Q()
-            MyAction bestAction = getActionsFromState(s).stream()
-                    .max(Comparator.comparing(a -> Q(s, a, V, discount)))
-                    .orElseThrow(NoSuchElementException::new);
-            policy.put(s, bestAction);
+    /**
+     * returns the sparse, index-based model of the MDP (built on first use)
+     */
+    public SparseModel getModel() {
+        if (model == null) {
+            model = new SparseModel(this, possibleStates, topology.size());
         }
+        return model;
+    }
 
-        //System.out.println(policy);
-        return policy;
+    /**
+     * returns the optimal policy
+     */
+    public HashMap<State, MyAction> generatePolicy(double discount) {
+        return generatePolicy(discount, 1);
     }
 
     /**
-     * returns the reward for taking given action in given state, considering future rewards from table V,
-     * discounted by the given discount factor
+     * returns the optimal policy, sweeping over the states with the given number of threads
      */
-    private double Q(State s, MyAction a, HashMap<State, Double> V, double discount) {
-        double sum = 0;
-        for (State sp : possibleStates) {
-            sum += T(s, a, sp) * V.get(sp);
-        }
-        return R(s, a) + discount * sum;
+    public HashMap<State, MyAction> generatePolicy(double discount, int threads) {
+        Solver.Type type = (threads > 1) ? Solver.Type.JACOBI : Solver.Type.GAUSS_SEIDEL;
+        return generatePolicy(discount, Solver.create(type, threads));
     }
 
     /**
-     * metric used as stopping criterion for Value Iteration
+     * returns the optimal policy, computing V with the given solver
      */
-    private double getError(HashMap<State, Double> V, HashMap<State, Double> lastV) {
-        ArrayList<Double> diffs = new ArrayList<>();
-        for (State s : possibleStates) {
-            diffs.add(Math.abs(lastV.get(s) - V.get(s)));
+    public HashMap<State, MyAction> generatePolicy(double discount, Solver solver) {
+        return generatePolicy(discount, solver, new double[getModel().numStates]);
+    }
+
+    /**
+     * returns the optimal policy, computing V with the given solver starting from the given values
+     * (indexed like generateAllPossibleState())
+     */
+    public HashMap<State, MyAction> generatePolicy(double discount, Solver solver, double[] initialV) {
+        SparseModel m = getModel();
+        V = solver.solve(m, discount, initialV);
+
+        //generate policy from V
+        HashMap<State, MyAction> policy = new HashMap<>();
+        for (int s = 0; s < m.numStates; s++) {
+            //find action that maximises Q()
+            policy.put(m.states[s], m.rowAction[m.bestRow(s, V, discount)]);
         }
-        //System.out.println("error: " + Collections.max(diffs));
-        return Collections.max(diffs);
+
+        //System.out.println(policy);
+        return policy;
     }
 
     //for debugging and testing T()
@@ -0,0 +1,46 @@
+package rla;
+
+/**
+ * Policy iteration: the value of the current policy is computed by an iterative (Gauss-Seidel) linear solve,
+ * then the policy is improved greedily, until it does not change anymore
+ */
+public class PolicyIterationSolver extends Solver {
+
+    @Override
+    protected double[] iterate(SparseModel m, double discount, double[] V) {
+        int n = m.numStates;
+
+        //start from the greedy policy
+        int[] policy = new int[n];
+        for (int s = 0; s < n; s++) {
+            policy[s] = m.bestRow(s, V, discount);
+        }
+
+        boolean changed;
+        do {
+            //policy evaluation: solve V = R + discount * T V for the current policy
+            double error;
+            do {
+                error = 0;
+                for (int s = 0; s < n; s++) {
+                    double q = m.Q(policy[s], V, discount);
+                    error = Math.max(error, Math.abs(q - V[s]));
+                    V[s] = q;
+                }
+                recordSweep(error);
+            } while (error > EPSILON);
+
+            //policy improvement: only switch to strictly better actions, so that the loop terminates
+            changed = false;
+            for (int s = 0; s < n; s++) {
+                int best = m.bestRow(s, V, discount);
+                if (m.Q(best, V, discount) > m.Q(policy[s], V, discount)) {
+                    policy[s] = best;
+                    changed = true;
+                }
+            }
+            recordImprovement();
+        } while (changed);
+        return V;
+    }
+}
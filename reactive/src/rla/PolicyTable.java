@@ -0,0 +1,69 @@
+package rla;
+
+import logist.plan.Action;
+import logist.task.Task;
+import logist.topology.Topology;
+import logist.topology.Topology.City;
+import rla.PolicyGenerator.MyAction;
+import rla.PolicyGenerator.MyMove;
+
+import java.util.Map;
+
+/**
+ * A policy compiled into flat arrays indexed by [current city id][task destination id],
+ * the last column being used when there is no task in the current city.
+ * Looking up an action does not allocate anything, except for the pickup action that holds the task.
+ */
+public class PolicyTable {
+    static final int PICKUP = -1;
+
+    private final int noTask;
+    //id of the city to move to, or PICKUP
+    private final int[][] actionCodes;
+    //shared move actions, null for a pickup
+    private final Action[][] moves;
+
+    public PolicyTable(Topology topology, Map<State, MyAction> policy) {
+        int n = topology.size();
+        noTask = n;
+        actionCodes = new int[n][n + 1];
+        moves = new Action[n][n + 1];
+
+        //one Move action per destination city
+        Action[] moveTo = new Action[n];
+        for (City city : topology) {
+            moveTo[city.id] = new Action.Move(city);
+        }
+
+        for (Map.Entry<State, MyAction> entry : policy.entrySet()) {
+            State s = entry.getKey();
+            int city = s.getCity().id;
+            int column = (s.getCityTask() == null) ? noTask : s.getCityTask().getDestination().id;
+            if (entry.getValue() instanceof MyMove) {
+                City destination = ((MyMove) entry.getValue()).getDestination();
+                actionCodes[city][column] = destination.id;
+                moves[city][column] = moveTo[destination.id];
+            } else {
+                actionCodes[city][column] = PICKUP;
+            }
+        }
+    }
+
+    /**
+     * returns the action of the policy in the given city, with the given available task (or null)
+     */
+    public Action getAction(City city, Task availableTask) {
+        int column = (availableTask == null) ? noTask : availableTask.deliveryCity.id;
+        if (actionCodes[city.id][column] == PICKUP) {
+            return new Action.Pickup(availableTask);
+        }
+        return moves[city.id][column];
+    }
+
+    /**
+     * returns the id of the city to move to in the given state, or PICKUP
+     */
+    public int getActionCode(int city, int taskDestination) {
+        return actionCodes[city][taskDestination];
+    }
+}
@@ -0,0 +1,138 @@
+package rla;
+
+import logist.agent.Agent;
+import logist.task.Task;
+import logist.task.TaskDistribution;
+import logist.topology.Topology;
+import logist.topology.Topology.City;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the policy of a ReactiveRLA agent up to date with the task distribution it observes.
+ * The tasks seen in each city are counted, and when the observed distribution of a city moves too far
+ * (total variation distance) from the one the policy was computed for, value iteration is run again
+ * in a background thread, starting from the current V. The new policy replaces the old one atomically.
+ */
+public class PolicyUpdater {
+    private final Topology topology;
+    private final TaskDistribution td;
+    private final Agent agent;
+    private final double discount;
+    private final Solver.Type solverType;
+    private final int threads;
+    private final double threshold;
+    private final int minSamples;
+
+    //probability[from][to] the current policy was computed for, the last column being "no task"
+    private double[][] modelProbability;
+    //number of times each task (or no task) was seen in each city since the last update
+    private final int[][] counts;
+    private final int[] totals;
+
+    private volatile PolicyTable table;
+    private volatile double[] V;
+    private final AtomicBoolean resolving = new AtomicBoolean(false);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "policy-updater");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PolicyUpdater(Topology topology, TaskDistribution td, Agent agent, double discount,
+                         Solver.Type solverType, int threads, double threshold, int minSamples,
+                         PolicyTable table, double[] V) {
+        this.topology = topology;
+        this.td = td;
+        this.agent = agent;
+        this.discount = discount;
+        this.solverType = solverType;
+        this.threads = threads;
+        this.threshold = threshold;
+        this.minSamples = minSamples;
+        this.table = table;
+        this.V = V;
+
+        int n = topology.size();
+        counts = new int[n][n + 1];
+        totals = new int[n];
+        modelProbability = new double[n][n + 1];
+        for (City from : topology) {
+            for (City to : topology) {
+                modelProbability[from.id][to.id] = td.probability(from, to);
+            }
+            modelProbability[from.id][n] = td.probability(from, null);
+        }
+    }
+
+    /**
+     * returns the latest policy
+     */
+    public PolicyTable getTable() {
+        return table;
+    }
+
+    /**
+     * records the task available in the given city (or null), and starts a new policy computation
+     * if the observed distribution of this city has drifted too far
+     */
+    public void observe(City city, Task availableTask) {
+        int n = topology.size();
+        counts[city.id][(availableTask == null) ? n : availableTask.deliveryCity.id]++;
+        totals[city.id]++;
+
+        //only check every minSamples observations of a city
+        if (totals[city.id] % minSamples == 0 && getDrift(city.id) > threshold
+                && resolving.compareAndSet(false, true)) {
+            double[][] probability = snapshot();
+            modelProbability = probability;
+            executor.execute(() -> resolve(probability));
+        }
+    }
+
+    /**
+     * returns the total variation distance between the observed and the modeled distribution of a city
+     */
+    private double getDrift(int city) {
+        double distance = 0;
+        for (int j = 0; j < counts[city].length; j++) {
+            distance += Math.abs((double) counts[city][j] / totals[city] - modelProbability[city][j]);
+        }
+        return distance / 2;
+    }
+
+    /**
+     * returns the modeled distribution where the cities with enough observations use the observed one,
+     * and resets the observations of these cities, the others keep counting
+     */
+    private double[][] snapshot() {
+        double[][] probability = new double[modelProbability.length][];
+        for (int i = 0; i < probability.length; i++) {
+            probability[i] = modelProbability[i].clone();
+            if (totals[i] >= minSamples) {
+                for (int j = 0; j < probability[i].length; j++) {
+                    probability[i][j] = (double) counts[i][j] / totals[i];
+                }
+                Arrays.fill(counts[i], 0);
+                totals[i] = 0;
+            }
+        }
+        return probability;
+    }
+
+    private void resolve(double[][] probability) {
+        try {
+            PolicyGenerator generator = new PolicyGenerator(topology, new ObservedTaskDistribution(td, probability), agent);
+            Solver solver = Solver.create(solverType, threads);
+            double[] initialV = (V != null) ? V : new double[generator.getModel().numStates];
+            PolicyTable newTable = new PolicyTable(topology, generator.generatePolicy(discount, solver, initialV));
+            V = generator.getValues();
+            table = newTable;
+        } finally {
+            resolving.set(false);
+        }
+    }
+}
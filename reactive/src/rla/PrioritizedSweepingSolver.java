@@ -0,0 +1,78 @@
+package rla;
+
+/**
+ * Value iteration backing up the state with the largest Bellman error first.
+ * After a backup, only the Bellman errors of the predecessors of the state can change.
+ */
+public class PrioritizedSweepingSolver extends Solver {
+
+    @Override
+    protected double[] iterate(SparseModel m, double discount, double[] V) {
+        int n = m.numStates;
+        int[] predStart = m.getPredecessorStart();
+        int[] predState = m.getPredecessorStates();
+
+        //max-heap of the states, ordered by Bellman error
+        double[] priority = new double[n];
+        int[] heap = new int[n];
+        int[] position = new int[n];
+        for (int s = 0; s < n; s++) {
+            priority[s] = Math.abs(m.maxQ(s, V, discount) - V[s]);
+            heap[s] = s;
+            position[s] = s;
+        }
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(heap, position, priority, i, n);
+        }
+
+        long backups = 0;
+        while (priority[heap[0]] > EPSILON) {
+            int s = heap[0];
+            V[s] = m.maxQ(s, V, discount);
+            priority[s] = 0;
+            siftDown(heap, position, priority, 0, n);
+
+            for (int k = predStart[s]; k < predStart[s + 1]; k++) {
+                int p = predState[k];
+                double error = Math.abs(m.maxQ(p, V, discount) - V[p]);
+                double old = priority[p];
+                priority[p] = error;
+                if (error > old) siftUp(heap, position, priority, position[p]);
+                else siftDown(heap, position, priority, position[p], n);
+            }
+
+            //every n backups count as one sweep, with the largest Bellman error as residual
+            if (++backups % n == 0) recordSweep(priority[heap[0]]);
+        }
+        if (backups % n != 0) recordSweep(priority[heap[0]]);
+        return V;
+    }
+
+    private static void siftUp(int[] heap, int[] position, double[] priority, int i) {
+        int s = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (priority[heap[parent]] >= priority[s]) break;
+            heap[i] = heap[parent];
+            position[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = s;
+        position[s] = i;
+    }
+
+    private static void siftDown(int[] heap, int[] position, double[] priority, int i, int size) {
+        int s = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && priority[heap[child + 1]] > priority[heap[child]]) child++;
+            if (priority[heap[child]] <= priority[s]) break;
+            heap[i] = heap[child];
+            position[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = s;
+        position[s] = i;
+    }
+}
@@ -1,7 +1,8 @@
 package rla;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.HashMap;
-import java.util.Random;
 
 import logist.plan.Action;
 import logist.simulation.Vehicle;
@@ -10,10 +11,7 @@ import logist.behavior.ReactiveBehavior;
 import logist.task.Task;
 import logist.task.TaskDistribution;
 import logist.topology.Topology;
-import logist.topology.Topology.City;
 import rla.PolicyGenerator.MyAction;
-import rla.PolicyGenerator.MyMove;
-import rla.PolicyGenerator.MyPickup;
 
 /**
  * Reactive Agent using a fixed policy, optimized using the Value Iteration method
@@ -24,7 +22,8 @@ public class ReactiveRLA implements ReactiveBehavior {
     private Agent myAgent;
     Double discount;
 
-    private HashMap<State, MyAction> policy;
+    private PolicyTable policy;
+    private PolicyUpdater updater;
 
     @Override
     public void setup(Topology topology, TaskDistribution td, Agent agent) {
@@ -33,36 +32,87 @@ public class ReactiveRLA implements ReactiveBehavior {
         // If the property is not present it defaults to 0.95
         discount = agent.readProperty("discount-factor", Double.class,
                 0.95);
+        // Number of threads used by the JACOBI solver (the default solver when greater than 1)
+        int threads = agent.readProperty("threads", Integer.class, 1);
+        // Algorithm used to compute the value function, see Solver.Type
+        String solverName = agent.readProperty("solver", String.class,
+                threads > 1 ? "JACOBI" : "GAUSS_SEIDEL");
+        // Throws IllegalArgumentException if solver is unknown
+        Solver.Type solverType = Solver.Type.valueOf(solverName.toUpperCase());
+        Solver solver = Solver.create(solverType, threads);
+        // Directory of the on-disk policy cache, the cache is disabled if the property is not present
+        String cacheDirectory = agent.readProperty("policy-cache", String.class, "");
+        // File receiving the convergence metrics of the solver (JSON if it ends with .json, CSV otherwise)
+        String metricsFile = agent.readProperty("metrics-file", String.class, "");
+        // Total variation distance between the observed and the modeled task distribution of a city
+        // above which the policy is recomputed, 0 keeps the policy fixed
+        double driftThreshold = agent.readProperty("drift-threshold", Double.class, 0.0);
+        // Number of observations of a city between two drift checks
+        int driftSamples = agent.readProperty("drift-samples", Integer.class, 200);
+        // Checks the precomputed model against R() and T() before solving (slow, for debugging)
+        boolean selfCheck = agent.readProperty("self-check", Boolean.class, false);
 
         this.numActions = 0;
         this.myAgent = agent;
 
-        policy = new PolicyGenerator(topology, td, agent).generatePolicy(discount);
+        PolicyGenerator generator = new PolicyGenerator(topology, td, agent);
+        PolicyCache cache = null;
+        HashMap<State, MyAction> policy = null;
+        double[] V = null;
+        if (!cacheDirectory.isEmpty()) {
+            cache = new PolicyCache(new File(cacheDirectory), topology, td,
+                    agent.vehicles().get(0).costPerKm(), discount, solverType);
+            policy = cache.load(generator);
+            V = cache.getValues();
+        }
+        if (policy == null) {
+            if (selfCheck) {
+                generator.checkModel();
+                System.out.println("Model check passed");
+            }
+            policy = generator.generatePolicy(discount, solver);
+            System.out.println(solver);
+            if (!metricsFile.isEmpty()) {
+                try {
+                    solver.getMetrics().write(new File(metricsFile));
+                } catch (IOException e) {
+                    System.out.println("There was a problem writing the metrics file: " + e.getMessage());
+                }
+            }
+            if (cache != null) cache.store(generator, policy);
+            V = generator.getValues();
+        }
+        this.policy = new PolicyTable(topology, policy);
+        if (driftThreshold > 0) {
+            updater = new PolicyUpdater(topology, td, agent, discount, solverType, threads,
+                    driftThreshold, driftSamples, this.policy, V);
+        }
         //new PolicyGenerator(topology, td).displayT();
     }
 
+    /**
+     * returns a new agent for the given vehicles, using the policy of this one (without policy updates)
+     */
+    ReactiveRLA copyFor(Agent agent) {
+        ReactiveRLA copy = new ReactiveRLA();
+        copy.numActions = 0;
+        copy.myAgent = agent;
+        copy.discount = discount;
+        copy.policy = policy;
+        return copy;
+    }
+
     @Override
     public Action act(Vehicle vehicle, Task availableTask) {
-        Action action;
-        City dest;
-        City currentCity = vehicle.getCurrentCity();
-        MyTask currentTask;
-		if (availableTask != null ) {
-        	 dest = availableTask.deliveryCity;
-        	 currentTask = new MyTask(dest);
-        } else {
-        	 currentTask = null;
-        }
-		
-        State currentState = new State(currentCity, currentTask);
-        MyAction bestAction = policy.get(currentState);
-        if (bestAction instanceof MyPickup) {
-        	//System.out.println("Pickup the task, delivery to "+availableTask.deliveryCity);
-        	action = new Action.Pickup(availableTask);
-        } else {
-        	//System.out.println("Move to next city : "+ ((MyMove) bestAction).getDestination());
-            action = new Action.Move(((MyMove) bestAction).getDestination());
+        if (updater != null) {
+            updater.observe(vehicle.getCurrentCity(), availableTask);
+            //the new policy is computed in the background, it is reported here, on the simulation thread
+            if (updater.getTable() != policy) {
+                policy = updater.getTable();
+                System.out.println("policy updated after " + numActions + " actions");
+            }
         }
+        Action action = policy.getAction(vehicle.getCurrentCity(), availableTask);
         if (numActions >= 1) {
             //System.out.println("Reactive agent "+ discount+ ": The total profit after " + numActions + " actions is " + myAgent.getTotalProfit() + " (average profit: " + (myAgent.getTotalProfit() / (double) numActions) + ")");
         }
@@ -0,0 +1,120 @@
+package rla;
+
+/**
+ * Algorithm computing the optimal value function V of a SparseModel.
+ * Every solver records the number of sweeps it needed and its wall time,
+ * and the residual and duration of each sweep in a SolverMetrics.
+ * The policy improvement steps of policy iteration are not sweeps of V, they are recorded apart.
+ */
+public abstract class Solver {
+
+    public enum Type {GAUSS_SEIDEL, JACOBI, PRIORITIZED_SWEEPING, POLICY_ITERATION}
+
+    //stopping criterion on the change of V (or on the Bellman error)
+    static final double EPSILON = 1e-14;
+
+    private int sweeps;
+    private int improvements;
+    private long time;
+    private long lastSweep;
+    private SolverMetrics metrics;
+
+    /**
+     * returns a new solver of the given type
+     */
+    public static Solver create(Type type, int threads) {
+        switch (type) {
+            case GAUSS_SEIDEL:
+                return new GaussSeidelSolver();
+            case JACOBI:
+                return new JacobiSolver(threads);
+            case PRIORITIZED_SWEEPING:
+                return new PrioritizedSweepingSolver();
+            case POLICY_ITERATION:
+                return new PolicyIterationSolver();
+            default:
+                throw new AssertionError("Should not happen.");
+        }
+    }
+
+    /**
+     * returns the optimal value of every state of the model
+     */
+    public final double[] solve(SparseModel m, double discount) {
+        //init V(s) arbitrarily
+        return solve(m, discount, new double[m.numStates]);
+    }
+
+    /**
+     * returns the optimal value of every state of the model, starting from the given values (warm start)
+     */
+    public final double[] solve(SparseModel m, double discount, double[] initialV) {
+        long startTime = System.nanoTime();
+        sweeps = 0;
+        improvements = 0;
+        lastSweep = startTime;
+        metrics = new SolverMetrics(getClass().getSimpleName(), m.getNumStates(), m.getNumTransitions(), discount);
+        double[] V = iterate(m, discount, initialV.clone());
+        time = System.nanoTime() - startTime;
+        return V;
+    }
+
+    /**
+     * improves V until convergence, V can be modified and returned
+     */
+    protected abstract double[] iterate(SparseModel m, double discount, double[] V);
+
+    /**
+     * to be called by the solvers at the end of each sweep, with the residual (change of V or Bellman error)
+     */
+    protected void recordSweep(double residual) {
+        long now = System.nanoTime();
+        metrics.record(residual, now - lastSweep);
+        lastSweep = now;
+        sweeps++;
+    }
+
+    /**
+     * to be called by the solvers at the end of each policy improvement step, which is not counted as a sweep
+     */
+    protected void recordImprovement() {
+        long now = System.nanoTime();
+        metrics.recordImprovement(now - lastSweep);
+        lastSweep = now;
+        improvements++;
+    }
+
+    /**
+     * returns the metrics of the last solve
+     */
+    public SolverMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * returns the number of sweeps of the last solve (or the equivalent number of state backups)
+     */
+    public int getSweeps() {
+        return sweeps;
+    }
+
+    /**
+     * returns the number of policy improvement steps of the last solve
+     */
+    public int getImprovements() {
+        return improvements;
+    }
+
+    /**
+     * returns the wall time of the last solve in milliseconds
+     */
+    public double getTimeMs() {
+        return time / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + ": " + sweeps + " sweeps, "
+                + (improvements > 0 ? improvements + " policy improvements, " : "") + getTimeMs() + "ms";
+    }
+}
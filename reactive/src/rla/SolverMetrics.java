@@ -0,0 +1,123 @@
+package rla;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Convergence and timing measurements of one Solver run:
+ * the residual and the duration of every sweep, and the size of the solved model.
+ * Recording a sweep only writes into preallocated arrays (grown by doubling when full).
+ * The policy improvement steps of policy iteration are only counted, with their total duration,
+ * so that the sweeps of every solver can be compared.
+ */
+public class SolverMetrics {
+    private final String solver;
+    private final int numStates;
+    private final int numTransitions;
+    private final double discount;
+
+    private int numSweeps;
+    private double[] residuals = new double[1024];
+    private long[] sweepTimes = new long[1024];
+    private int numImprovements;
+    private long improvementTime;
+
+    public SolverMetrics(String solver, int numStates, int numTransitions, double discount) {
+        this.solver = solver;
+        this.numStates = numStates;
+        this.numTransitions = numTransitions;
+        this.discount = discount;
+    }
+
+    /**
+     * records a sweep with its final residual and its duration in nanoseconds
+     */
+    void record(double residual, long nanos) {
+        if (numSweeps == residuals.length) {
+            residuals = Arrays.copyOf(residuals, numSweeps * 2);
+            sweepTimes = Arrays.copyOf(sweepTimes, numSweeps * 2);
+        }
+        residuals[numSweeps] = residual;
+        sweepTimes[numSweeps] = nanos;
+        numSweeps++;
+    }
+
+    /**
+     * records a policy improvement step with its duration in nanoseconds
+     */
+    void recordImprovement(long nanos) {
+        numImprovements++;
+        improvementTime += nanos;
+    }
+
+    public int getNumSweeps() {
+        return numSweeps;
+    }
+
+    public double getResidual(int sweep) {
+        return residuals[sweep];
+    }
+
+    public long getSweepTime(int sweep) {
+        return sweepTimes[sweep];
+    }
+
+    public int getNumImprovements() {
+        return numImprovements;
+    }
+
+    public long getImprovementTime() {
+        return improvementTime;
+    }
+
+    public int getNumStates() {
+        return numStates;
+    }
+
+    public int getNumTransitions() {
+        return numTransitions;
+    }
+
+    /**
+     * returns one line per sweep: solver, states, transitions, discount, sweep, residual, time (ns)
+     */
+    public String toCSV() {
+        StringBuilder sb = new StringBuilder("solver,states,transitions,discount,sweep,residual,time_ns\n");
+        for (int i = 0; i < numSweeps; i++) {
+            sb.append(String.format(Locale.ROOT, "%s,%d,%d,%s,%d,%s,%d%n",
+                    solver, numStates, numTransitions, discount, i + 1, residuals[i], sweepTimes[i]));
+        }
+        return sb.toString();
+    }
+
+    public String toJSON() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "{\"solver\": \"%s\", \"states\": %d, \"transitions\": %d, \"discount\": %s, ",
+                solver, numStates, numTransitions, discount));
+        if (numImprovements > 0) {
+            sb.append(String.format(Locale.ROOT, "\"improvements\": %d, \"improvement_time_ns\": %d, ",
+                    numImprovements, improvementTime));
+        }
+        sb.append("\"residuals\": [");
+        for (int i = 0; i < numSweeps; i++) {
+            sb.append(i == 0 ? "" : ", ").append(residuals[i]);
+        }
+        sb.append("], \"time_ns\": [");
+        for (int i = 0; i < numSweeps; i++) {
+            sb.append(i == 0 ? "" : ", ").append(sweepTimes[i]);
+        }
+        return sb.append("]}\n").toString();
+    }
+
+    /**
+     * writes the metrics to the given file, as JSON if its name ends with .json and as CSV otherwise
+     */
+    public void write(File file) throws IOException {
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.print(file.getName().endsWith(".json") ? toJSON() : toCSV());
+        }
+    }
+}
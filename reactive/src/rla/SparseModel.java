@@ -0,0 +1,231 @@
+package rla;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import logist.topology.Topology.City;
+import rla.PolicyGenerator.MyAction;
+
+/**
+ * Dense, index-based view of the MDP built by a PolicyGenerator.
+ * Every State gets an integer index, every (state, action) pair gets a row,
+ * and the non-zero entries of T() are stored row by row (compressed sparse rows).
+ */
+public class SparseModel {
+    final int numStates;
+    final State[] states;
+    final HashMap<State, Integer> stateIndex;
+
+    //rows of state s are actionStart[s] .. actionStart[s+1]-1
+    final int[] actionStart;
+    final MyAction[] rowAction;
+    final double[] reward;
+
+    //non-zero transitions of row r are transStart[r] .. transStart[r+1]-1
+    final int[] transStart;
+    final int[] transState;
+    final double[] transProb;
+
+    //states that can reach state s are predState[predStart[s]] .. predState[predStart[s+1]-1] (built on first use)
+    private int[] predStart;
+    private int[] predState;
+
+    SparseModel(PolicyGenerator generator, ArrayList<State> possibleStates, int numCities) {
+        numStates = possibleStates.size();
+        states = possibleStates.toArray(new State[0]);
+        stateIndex = new HashMap<>();
+
+        //the states of a city are contiguous in possibleStates
+        int[] cityStart = new int[numCities];
+        int[] cityEnd = new int[numCities];
+        for (int i = numStates - 1; i >= 0; i--) {
+            int city = states[i].getCity().id;
+            if (cityEnd[city] == 0) cityEnd[city] = i + 1;
+            cityStart[city] = i;
+            stateIndex.put(states[i], i);
+        }
+
+        actionStart = new int[numStates + 1];
+        ArrayList<MyAction> actions = new ArrayList<>();
+        for (int i = 0; i < numStates; i++) {
+            actionStart[i] = actions.size();
+            actions.addAll(generator.getActionsFromState(states[i]));
+        }
+        int numRows = actions.size();
+        actionStart[numStates] = numRows;
+        rowAction = actions.toArray(new MyAction[0]);
+        reward = new double[numRows];
+        transStart = new int[numRows + 1];
+
+        //task destination of each state, -1 if there is no task
+        int[] taskDestination = new int[numStates];
+        for (int i = 0; i < numStates; i++) {
+            MyTask task = states[i].getCityTask();
+            taskDestination[i] = (task == null) ? -1 : task.getDestination().id;
+        }
+
+        //R() and T() computed from the precomputed tables of the generator
+        IntList cols = new IntList();
+        DoubleList probs = new DoubleList();
+        for (int i = 0; i < numStates; i++) {
+            State s = states[i];
+            int city = s.getCity().id;
+            for (int row = actionStart[i]; row < actionStart[i + 1]; row++) {
+                MyAction a = rowAction[row];
+                int nextCity = nextCity(s, a).id;
+                if (a instanceof PolicyGenerator.MyPickup) {
+                    reward[row] = generator.reward[city][nextCity] - generator.costPerKm * generator.distance[city][nextCity];
+                } else {
+                    reward[row] = 0 - generator.costPerKm * generator.distance[city][nextCity];
+                }
+                transStart[row] = cols.size;
+
+                //T() can only be non-zero for the states of the city reached by the action
+                for (int j = cityStart[nextCity]; j < cityEnd[nextCity]; j++) {
+                    int destination = taskDestination[j];
+                    double p = (destination < 0) ? generator.noTaskProb[nextCity]
+                            : generator.probability[nextCity][destination];
+                    if (p != 0) {
+                        cols.add(j);
+                        probs.add(p);
+                    }
+                }
+            }
+        }
+        transStart[numRows] = cols.size;
+        transState = cols.toArray();
+        transProb = probs.toArray();
+    }
+
+    private static City nextCity(State s, MyAction a) {
+        if (a instanceof PolicyGenerator.MyMove) {
+            return ((PolicyGenerator.MyMove) a).getDestination();
+        } else return s.getCityTask().getDestination();
+    }
+
+    /**
+     * builds the reverse transition table: for each state, the states having a transition to it
+     */
+    private void buildPredecessors() {
+        int[] count = new int[numStates + 1];
+        int[] lastPred = new int[numStates];
+        Arrays.fill(lastPred, -1);
+        for (int pass = 0; pass < 2; pass++) {
+            if (pass == 1) {
+                //prefix sums of the counts give the start of each list
+                predStart = new int[numStates + 1];
+                for (int s = 0; s < numStates; s++) predStart[s + 1] = predStart[s] + count[s];
+                predState = new int[predStart[numStates]];
+                System.arraycopy(predStart, 0, count, 0, numStates);
+                Arrays.fill(lastPred, -1);
+            }
+            for (int i = 0; i < numStates; i++) {
+                for (int k = transStart[actionStart[i]]; k < transStart[actionStart[i + 1]]; k++) {
+                    int j = transState[k];
+                    if (lastPred[j] == i) continue;
+                    lastPred[j] = i;
+                    if (pass == 0) count[j]++;
+                    else predState[count[j]++] = i;
+                }
+            }
+        }
+    }
+
+    int[] getPredecessorStart() {
+        if (predStart == null) buildPredecessors();
+        return predStart;
+    }
+
+    int[] getPredecessorStates() {
+        if (predStart == null) buildPredecessors();
+        return predState;
+    }
+
+    /**
+     * returns the reward of the given row, considering future rewards from table V
+     */
+    double Q(int row, double[] V, double discount) {
+        double sum = 0;
+        for (int k = transStart[row]; k < transStart[row + 1]; k++) {
+            sum += transProb[k] * V[transState[k]];
+        }
+        return reward[row] + discount * sum;
+    }
+
+    /**
+     * returns the highest Q of state s over all its actions
+     */
+    double maxQ(int s, double[] V, double discount) {
+        double maxQ = Q(actionStart[s], V, discount);
+        for (int row = actionStart[s] + 1; row < actionStart[s + 1]; row++) {
+            maxQ = Math.max(maxQ, Q(row, V, discount));
+        }
+        return maxQ;
+    }
+
+    /**
+     * returns the row of state s with the highest Q (the first one in case of a tie)
+     */
+    int bestRow(int s, double[] V, double discount) {
+        int best = actionStart[s];
+        double bestQ = Q(best, V, discount);
+        for (int row = best + 1; row < actionStart[s + 1]; row++) {
+            double q = Q(row, V, discount);
+            if (q > bestQ) {
+                bestQ = q;
+                best = row;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Jacobi backup of the states from..to-1: reads V, writes nextV
+     * returns the largest change of V over these states
+     */
+    double sweep(double[] V, double[] nextV, int from, int to, double discount) {
+        double error = 0;
+        for (int s = from; s < to; s++) {
+            nextV[s] = maxQ(s, V, discount);
+            error = Math.max(error, Math.abs(nextV[s] - V[s]));
+        }
+        return error;
+    }
+
+    public int getNumStates() {
+        return numStates;
+    }
+
+    public int getNumTransitions() {
+        return transState.length;
+    }
+
+    private static class IntList {
+        int[] data = new int[64];
+        int size;
+
+        void add(int x) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = x;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+
+    private static class DoubleList {
+        double[] data = new double[64];
+        int size;
+
+        void add(double x) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = x;
+        }
+
+        double[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}